@@ -0,0 +1,125 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal benchmark harness for the game's hot paths. Each benchmark is run for a number of timed warmup and
+ * measurement iterations, and reports throughput along with the allocation rate and garbage collections during
+ * measurement, in the spirit of JMH's throughput mode with the GC profiler. As in JMH, the operation is run in batches
+ * between reads of the clock, sized during warmup so a batch takes about BATCH_NANOS, so operations of a few
+ * nanoseconds measure the operation rather than the clock. JMH itself cannot be used, as it does not support
+ * benchmarks of classes in the default package, which is where all the game classes live
+ * @author Taiyo Siew-Adachi
+ */
+public class Bench {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    /* Long enough that reading the clock between batches is well under a thousandth of the time measured */
+    private static final long BATCH_NANOS = 100_000L;
+    private final int warmupIterations = Integer.getInteger("bench.warmup", 2);
+    private final int measureIterations = Integer.getInteger("bench.iterations", 5);
+    private final long iterationNanos = Long.getLong("bench.iterationMillis", 1000L) * 1_000_000L;
+    private final String filter = System.getProperty("bench.filter", "");
+    /** Results are written here so the JIT cannot remove the work being measured */
+    public static volatile long sink;
+
+    /**
+     * A single operation of a benchmark
+     */
+    public interface Operation {
+        /**
+         * Runs the operation once
+         * @throws Exception if the operation fails, which aborts the benchmark
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs a benchmark and prints a line of results, unless its name does not match the filter
+     * @param name The name of the benchmark
+     * @param param The parameter the benchmark is run with, such as the level or entity count
+     * @param operation The operation to measure
+     * @throws Exception if the operation fails
+     */
+    public void run(String name, String param, Operation operation) throws Exception {
+        if (!name.contains(filter)) {
+            return;
+        }
+        long batch = 1;
+        for (int i = 0; i < warmupIterations; i++) {
+            long iterationStart = System.nanoTime();
+            long ops = iteration(operation, batch);
+            double nanosPerOp = (System.nanoTime() - iterationStart) / (double) ops;
+            batch = Math.max(1, (long) (BATCH_NANOS / nanosPerOp));
+        }
+        long threadId = Thread.currentThread().getId();
+        List<Double> opsPerSecond = new ArrayList<>();
+        long totalOps = 0;
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < measureIterations; i++) {
+            long iterationStart = System.nanoTime();
+            long ops = iteration(operation, batch);
+            opsPerSecond.add(ops / ((System.nanoTime() - iterationStart) / 1e9));
+            totalOps += ops;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        double mean = 0;
+        for (double value: opsPerSecond) {
+            mean += value / opsPerSecond.size();
+        }
+        double variance = 0;
+        for (double value: opsPerSecond) {
+            variance += (value - mean) * (value - mean) / opsPerSecond.size();
+        }
+        System.out.printf("%-28s %-12s %14.1f +- %8.1f ops/s %10.1f MB/s %12.1f B/op %5d gc %6d ms%n",
+                name, param, mean, Math.sqrt(variance), allocated / seconds / 1e6, allocated / (double) totalOps,
+                gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+    }
+
+    /**
+     * Runs the operation repeatedly for the length of one iteration, at least one batch, only reading the clock
+     * between batches
+     * @return The number of times the operation was run
+     */
+    private long iteration(Operation operation, long batch) throws Exception {
+        long end = System.nanoTime() + iterationNanos;
+        long ops = 0;
+        do {
+            for (long i = 0; i < batch; i++) {
+                operation.run();
+            }
+            ops += batch;
+        } while (System.nanoTime() < end);
+        return ops;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+    /**
+     * Prints the header of the results table
+     */
+    public void printHeader() {
+        System.out.printf("%-28s %-12s %14s   %8s %16s %17s %8s %9s%n",
+                "benchmark", "param", "throughput", "error", "alloc rate", "alloc norm", "gc", "gc time");
+    }
+}
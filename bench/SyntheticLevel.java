@@ -0,0 +1,75 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Generates level csv files of any size for benchmarking, using the same entity types and heights as the shipped
+ * levels, spread out along the level at regular intervals
+ * @author Taiyo Siew-Adachi
+ */
+public class SyntheticLevel {
+    private static final double FIRST_ENTITY_X = 300;
+    private static final double SPACING_X = 40;
+
+    /**
+     * Writes a level with the given number of entities, besides the platform, player, end flag and enemy boss, to a
+     * temporary file that is deleted when the JVM exits
+     * @param entities The number of coins, enemies, flying platforms and power ups in the level
+     * @return The path to the level file
+     * @throws IOException if the file cannot be written
+     */
+    public static String write(int entities) throws IOException {
+        File file = File.createTempFile("level" + entities + "-", ".csv");
+        file.deleteOnExit();
+        double endX = FIRST_ENTITY_X + entities * SPACING_X + 500;
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath())) {
+            writer.write("PLATFORM,3000,745\n");
+            writer.write("PLAYER,100,687\n");
+            for (int i = 0; i < entities; i++) {
+                double x = FIRST_ENTITY_X + i * SPACING_X;
+                if (i % 10 < 6) {
+                    writer.write("COIN," + x + "," + (i % 2 == 0 ? 505 : 600) + "\n");
+                }
+                else if (i % 10 < 9) {
+                    writer.write("ENEMY," + x + ",695\n");
+                }
+                else if (i % 100 == 9) {
+                    writer.write("FLYING_PLATFORM," + x + ",500\n");
+                }
+                else if (i % 20 == 19) {
+                    writer.write("DOUBLE_SCORE," + x + ",690\n");
+                }
+                else {
+                    writer.write("INVINCIBLE_POWER," + x + ",690\n");
+                }
+            }
+            writer.write("ENEMY_BOSS," + (endX - 300) + ",670\n");
+            writer.write("END_FLAG," + endX + ",670\n");
+        }
+        return file.getPath();
+    }
+
+    /**
+     * Builds a level with the given number of entities all crowded around the window, besides the platform, player
+     * and end flag, so every entity is moved and many are checked against the player each update: enemies spread
+     * across the window and flying platforms stacked above and below the player
+     * @param entities The number of enemies and flying platforms in the level
+     * @return The layout of the level
+     */
+    public static LevelLayout crowd(int entities) {
+        LevelLayout layout = new LevelLayout(entities + 3);
+        layout.add(EntityType.PLATFORM, 3000, 745);
+        layout.add(EntityType.PLAYER, 100, 687);
+        for (int i = 0; i < entities; i++) {
+            if (i % 2 == 0) {
+                layout.add(EntityType.ENEMY, i % 1024, 100 + (i / 1024) % 600);
+            }
+            else {
+                layout.add(EntityType.FLYING_PLATFORM, 100 + i % 100, 400 + i % 200);
+            }
+        }
+        layout.add(EntityType.END_FLAG, 100000, 670);
+        return layout;
+    }
+}
@@ -0,0 +1,195 @@
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * Benchmarks of the simulation hot paths: updating the world, collision checks against the player, scrolling,
+ * fireball collision and removal, and building worlds from level csv files and from compiled levels. Each is run on
+ * the shipped levels and on synthetic levels of increasing entity counts.
+ * Run with: mvn -B -P bench verify, or java WorldBenchmarks [entity counts...] from the project root.
+ * Options are read from the system properties bench.sizes (comma separated entity counts), bench.warmup,
+ * bench.iterations, bench.iterationMillis and bench.filter (only benchmarks whose name contains the filter are run)
+ * @author Taiyo Siew-Adachi
+ */
+public class WorldBenchmarks {
+    private static final String[] SHIPPED_LEVELS = {"res/level1.csv", "res/level2.csv", "res/level3.csv"};
+    private static final String DEFAULT_ENTITY_COUNTS = "1000,10000,100000,1000000";
+    /* Crowded levels keep every entity awake, so larger ones take too long per update to be worth running */
+    private static final int MAX_CROWD_ENTITIES = 100000;
+    /* Steps run on each crowd before it is benchmarked, checking the parallel update gives the same results */
+    private static final int PARALLEL_CHECK_STEPS = 200;
+    /* Every world is built from the same seed, so runs compare like with like */
+    private static final long SEED = 20003;
+    private static final GameConfig CONFIG = GameConfig.load("res/app.properties", "res/message_en.properties");
+
+    /**
+     * The entry point for the benchmarks
+     * @param args The entity counts of the synthetic levels to run, defaults to bench.sizes or 1k up to 1M
+     * @throws Exception if a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            args = System.getProperty("bench.sizes", DEFAULT_ENTITY_COUNTS).split(",");
+        }
+        int[] entityCounts = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            entityCounts[i] = Integer.parseInt(args[i].trim());
+        }
+        Bench bench = new Bench();
+        bench.printHeader();
+        for (int i = 0; i < SHIPPED_LEVELS.length; i++) {
+            runAll(bench, "level" + (i + 1), SHIPPED_LEVELS[i], i + 1);
+        }
+        for (int entities: entityCounts) {
+            runAll(bench, "n=" + entities, SyntheticLevel.write(entities), 3);
+        }
+        checkCollisions(bench, entityCounts);
+        TextureAtlas atlas = TextureAtlas.load("res");
+        for (int entities: entityCounts) {
+            if (entities <= MAX_CROWD_ENTITIES) {
+                updateCrowd(bench, entities);
+                drawCrowd(bench, entities, atlas);
+            }
+        }
+    }
+
+    /**
+     * Benchmarks updating a level crowded around the window, on one thread and split across the fork join pool, to
+     * measure how the update scales with the pool's parallelism (set with java.util.concurrent.ForkJoinPool.common.
+     * parallelism). Both are first run the same number of steps and checked to end the same, failing if they differ
+     */
+    private static void updateCrowd(Bench bench, int entities) throws Exception {
+        World checkSerial = newWorld(SyntheticLevel.crowd(entities), 2);
+        World checkParallel = newWorld(SyntheticLevel.crowd(entities), 2);
+        boolean matched = HeadlessRunner.checkParallel("crowd n=" + entities, checkSerial, checkParallel,
+                PARALLEL_CHECK_STEPS, CONFIG);
+        checkSerial.dispose();
+        checkParallel.dispose();
+        if (!matched) {
+            throw new IllegalStateException("updating the crowd in parallel changed the results, n=" + entities);
+        }
+        World serial = newWorld(SyntheticLevel.crowd(entities), 2);
+        serial.setParallelUpdate(false);
+        bench.run("updateCrowdSerial", "n=" + entities, serial::updateWorld);
+        World parallel = newWorld(SyntheticLevel.crowd(entities), 2);
+        bench.run("updateCrowdParallel", "n=" + entities, parallel::updateWorld);
+        serial.dispose();
+        parallel.dispose();
+    }
+
+    /**
+     * Benchmarks drawing a level crowded around the window, one sprite at a time, in batches from the atlas, and in
+     * batches from a draw list recorded for the render thread, with backends that draw nothing so only the cost of
+     * recording, queueing, sorting and writing the vertices is measured
+     */
+    private static void drawCrowd(Bench bench, int entities, TextureAtlas atlas) throws Exception {
+        World world = newWorld(SyntheticLevel.crowd(entities), 2);
+        Renderer direct = new HeadlessRenderer();
+        bench.run("drawCrowdDirect", "n=" + entities, () -> world.drawWorld(direct, 1.0));
+        SpriteBatchRenderer batched = new SpriteBatchRenderer(atlas, new CountingBatchBackend(),
+                new HeadlessRenderer());
+        bench.run("drawCrowdBatched", "n=" + entities, () -> {
+            world.drawWorld(batched, 1.0);
+            batched.endFrame();
+            Bench.sink += batched.getLastFrameDrawCalls();
+        });
+        System.out.printf("# drawCrowdBatched n=%d: %d sprites in %d draw calls per frame%n", entities,
+                batched.getLastFrameBatchedSprites(), batched.getLastFrameDrawCalls());
+        PipelinedRenderer pipelined = new PipelinedRenderer(new HeadlessRenderer());
+        bench.run("drawCrowdPipelined", "n=" + entities, () -> {
+            world.drawWorld(pipelined, 1.0);
+            pipelined.publish();
+            pipelined.drawLatest(batched);
+            batched.endFrame();
+        });
+        world.dispose();
+    }
+
+    /**
+     * Runs the benchmarks that work on a whole world for one level file
+     */
+    private static void runAll(Bench bench, String param, String file, int level) throws Exception {
+        bench.run("levelParse", param, () -> buildAndDispose(LevelParser.parse(file), level));
+        LevelCompiler.compile(file);
+        String compiledFile = LevelCompiler.compiledPath(file);
+        new File(compiledFile).deleteOnExit();
+        bench.run("levelLoadCompiled", param,
+                () -> buildAndDispose(LevelLoader.readCompiled(compiledFile, -1), level));
+        bench.run("layoutParse", param, () -> Bench.sink += LevelParser.parse(file).size());
+        bench.run("layoutLoadCompiled", param, () -> Bench.sink += LevelLoader.readCompiled(compiledFile, -1).size());
+
+        World updated = newWorld(file, level);
+        bench.run("updateWorld", param, updated::updateWorld);
+        updated.dispose();
+
+        World scrolled = newWorld(file, level);
+        bench.run("moveRightLeft", param, () -> {
+            scrolled.moveRight();
+            scrolled.moveLeft();
+        });
+        scrolled.dispose();
+
+        if (level == 3) {
+            World3 world = (World3) newWorld(file, level);
+            Player player = world.getPlayer();
+            EnemyBoss enemyBoss = world.getEnemyBoss();
+            bench.run("fireballs", param, () -> {
+                player.shootFireball(world.getProjectiles());
+                enemyBoss.shootFireball(world.getProjectiles());
+                world.updateWorld();
+            });
+            world.dispose();
+        }
+    }
+
+    /**
+     * Builds the world of a level and disposes of it straight away, so the background streaming and sprites of one
+     * measured world are not left running into the next
+     */
+    private static void buildAndDispose(LevelLayout layout, int level) {
+        World world = newWorld(layout, level);
+        Bench.sink += world.hashCode();
+        world.dispose();
+    }
+
+    /**
+     * Benchmarks the collision check of coins against the player, scanning every coin once per operation
+     */
+    private static void checkCollisions(Bench bench, int[] entityCounts) throws Exception {
+        Player player = new Player(100, 687, CONFIG);
+        for (int entities: entityCounts) {
+            ArrayList<InteractsWithPlayer> coins = new ArrayList<>();
+            for (int i = 0; i < entities; i++) {
+                coins.add(new Coin(100 + (i % 200), 505 + (i % 300), CONFIG));
+            }
+            bench.run("checkCollisionWithPlayer", "n=" + entities, () -> {
+                int collisions = 0;
+                for (InteractsWithPlayer coin: coins) {
+                    if (coin.checkCollisionWithPlayer(player)) {
+                        collisions++;
+                    }
+                }
+                Bench.sink += collisions;
+            });
+        }
+    }
+
+    /**
+     * Constructs the world class of a level from the given file
+     */
+    private static World newWorld(String file, int level) {
+        return newWorld(LevelLoader.load(file), level);
+    }
+
+    /**
+     * Constructs the world class of a level from the given layout
+     */
+    private static World newWorld(LevelLayout layout, int level) {
+        if (level == 1) {
+            return new World1(layout, CONFIG, SEED);
+        }
+        if (level == 2) {
+            return new World2(layout, CONFIG, SEED);
+        }
+        return new World3(layout, CONFIG, SEED);
+    }
+}
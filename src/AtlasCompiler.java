@@ -0,0 +1,120 @@
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Packs the sprite images of a directory into a texture atlas ahead of time, so the game decodes a page or two at
+ * startup instead of every image. The pages are saved as png images in an atlas directory next to the images, with a
+ * manifest holding the CRC32 checksum of the images they were packed from and where each image is on its page.
+ * The atlas is built by the Maven build.
+ * Usage: java AtlasCompiler [image directories...]
+ * @author Taiyo Siew-Adachi
+ */
+public class AtlasCompiler {
+    public static final int VERSION = 1;
+    static final String VERSION_KEY = "version";
+    static final String CHECKSUM_KEY = "checksum";
+    static final String PAGE_SIZE_KEY = "pageSize";
+    static final String PAGES_KEY = "pages";
+    static final String REGION_PREFIX = "region.";
+    private static final String ATLAS_DIRECTORY = "atlas";
+    private static final String MANIFEST_FILE = "atlas.properties";
+
+    /**
+     * Packs the images of each directory given
+     * @param args The paths to the directories of images
+     * @throws IOException if an image cannot be read or the atlas cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        for (String directory: args) {
+            TextureAtlas atlas = compile(directory);
+            System.out.printf("packed %s: %d images into %d pages of %dx%d -> %s%n", directory,
+                    atlas.getRegionCount(), atlas.getPageCount(), atlas.getPageSize(), atlas.getPageSize(),
+                    manifestPath(directory));
+        }
+    }
+
+    /**
+     * Packs the images of a directory into an atlas, and saves it in the atlas directory next to them
+     * @param directory The path to the directory of images
+     * @return The atlas that was packed
+     * @throws IOException if an image cannot be read or the atlas cannot be written
+     */
+    public static TextureAtlas compile(String directory) throws IOException {
+        List<String> files = TextureAtlas.listImages(directory);
+        TextureAtlas atlas = TextureAtlas.pack(files, TextureAtlas.DEFAULT_PAGE_SIZE);
+        write(atlas, checksum(files), directory);
+        return atlas;
+    }
+
+    /**
+     * Saves an atlas as its pages and manifest
+     * @param atlas The atlas
+     * @param checksum The checksum of the images the atlas was packed from
+     * @param directory The path to the directory of images the atlas was packed from
+     * @throws IOException if the atlas cannot be written
+     */
+    public static void write(TextureAtlas atlas, long checksum, String directory) throws IOException {
+        Files.createDirectories(Paths.get(directory, ATLAS_DIRECTORY));
+        for (int page = 0; page < atlas.getPageCount(); page++) {
+            ImageIO.write(atlas.getPageImage(page), "png", Paths.get(pagePath(directory, page)).toFile());
+        }
+        Properties manifest = new Properties();
+        manifest.setProperty(VERSION_KEY, String.valueOf(VERSION));
+        manifest.setProperty(CHECKSUM_KEY, String.valueOf(checksum));
+        manifest.setProperty(PAGE_SIZE_KEY, String.valueOf(atlas.getPageSize()));
+        manifest.setProperty(PAGES_KEY, String.valueOf(atlas.getPageCount()));
+        String prefix = directory + "/";
+        for (String file: atlas.getFiles()) {
+            TextureAtlas.Region region = atlas.find(file);
+            String name = file.startsWith(prefix) ? file.substring(prefix.length()) : file;
+            manifest.setProperty(REGION_PREFIX + name, region.getPage() + "," + region.getX() + "," + region.getY()
+                    + "," + region.getWidth() + "," + region.getHeight());
+        }
+        try (OutputStream out = Files.newOutputStream(Paths.get(manifestPath(directory)))) {
+            manifest.store(out, "Texture atlas packed by AtlasCompiler, region = page, x, y, width, height");
+        }
+    }
+
+    /**
+     * Finds the path of the atlas manifest for a directory of images
+     * @param directory The path to the directory of images
+     * @return The path to the manifest
+     */
+    public static String manifestPath(String directory) {
+        return directory + "/" + ATLAS_DIRECTORY + "/" + MANIFEST_FILE;
+    }
+
+    /**
+     * Finds the path of a page of the atlas for a directory of images
+     * @param directory The path to the directory of images
+     * @param page The number of the page
+     * @return The path to the page image
+     */
+    public static String pagePath(String directory, int page) {
+        return directory + "/" + ATLAS_DIRECTORY + "/page" + page + ".png";
+    }
+
+    /**
+     * Calculates the CRC32 checksum of the names and contents of images, to tell if an atlas is out of date with them
+     * @param files The paths to the images, in the order they are listed
+     * @return The checksum of the images
+     * @throws IOException if an image cannot be read
+     */
+    public static long checksum(List<String> files) throws IOException {
+        CRC32 crc = new CRC32();
+        for (String file: files) {
+            Path path = Paths.get(file);
+            crc.update(path.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            crc.update(Files.readAllBytes(path));
+        }
+        return crc.getValue();
+    }
+}
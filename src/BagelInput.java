@@ -0,0 +1,38 @@
+import bagel.Input;
+import bagel.Keys;
+
+/**
+ * Reads the keys used by the simulation from Bagel's input into an InputState
+ * @author Taiyo Siew-Adachi
+ */
+public class BagelInput {
+
+    /**
+     * Latches the keys held and pressed this frame into the input state
+     * @param input The key input from the user
+     * @param inputState The input state the simulation reads
+     */
+    public static void latch(Input input, InputState inputState) {
+        inputState.latch(keyBits(input, false), keyBits(input, true));
+    }
+
+    /**
+     * Packs the held or pressed state of the keys into a bitmask
+     */
+    private static int keyBits(Input input, boolean wasPressed) {
+        int bits = 0;
+        if (wasPressed ? input.wasPressed(Keys.LEFT) : input.isDown(Keys.LEFT)) {
+            bits |= InputState.LEFT;
+        }
+        if (wasPressed ? input.wasPressed(Keys.RIGHT) : input.isDown(Keys.RIGHT)) {
+            bits |= InputState.RIGHT;
+        }
+        if (wasPressed ? input.wasPressed(Keys.UP) : input.isDown(Keys.UP)) {
+            bits |= InputState.UP;
+        }
+        if (wasPressed ? input.wasPressed(Keys.S) : input.isDown(Keys.S)) {
+            bits |= InputState.SHOOT;
+        }
+        return bits;
+    }
+}
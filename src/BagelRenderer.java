@@ -0,0 +1,52 @@
+import bagel.DrawOptions;
+import bagel.Font;
+import java.util.HashMap;
+
+/**
+ * Renderer that draws to the Bagel game window
+ * @author Taiyo Siew-Adachi
+ */
+public class BagelRenderer implements Renderer {
+    private final String fontFile;
+    private final HashMap<Integer, Font> fonts = new HashMap<>();
+
+    /**
+     * Constructs a renderer for the Bagel window
+     * @param fontFile The path to the font file that text is drawn in
+     */
+    public BagelRenderer(String fontFile) {
+        this.fontFile = fontFile;
+    }
+
+    @Override
+    public void drawSprite(Sprite sprite, double x, double y) {
+        sprite.getImage().draw(x, y);
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y) {
+        getFont(fontSize).drawString(text, x, y);
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y, DrawOptions options) {
+        getFont(fontSize).drawString(text, x, y, options);
+    }
+
+    @Override
+    public double getTextWidth(int fontSize, String text) {
+        return getFont(fontSize).getWidth(text);
+    }
+
+    /**
+     * Retrieves the font of the given size, loading it on first use
+     */
+    private Font getFont(int fontSize) {
+        Font font = fonts.get(fontSize);
+        if (font == null) {
+            font = new Font(fontFile, fontSize);
+            fonts.put(fontSize, font);
+        }
+        return font;
+    }
+}
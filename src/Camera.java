@@ -0,0 +1,102 @@
+/**
+ * Represents the view into the world. Entities keep their positions in world space and the camera's scroll offset is
+ * applied when they are drawn or collided, so scrolling the view does not have to touch every entity
+ * @author Taiyo Siew-Adachi
+ */
+public class Camera {
+    /** The number of steps the view has been scrolled to the right, negative if scrolled to the left */
+    private double offset = 0;
+    /** The scroll offset at the start of the latest simulation step, for interpolated drawing */
+    private double previousOffset = 0;
+    private long tick = 0;
+    private double alpha = 1.0;
+
+    /**
+     * Starts a new simulation step, remembering the current scroll offset as the previous state to draw from
+     */
+    public void beginStep() {
+        previousOffset = offset;
+        tick++;
+    }
+
+    /**
+     * Sets how far the frame being drawn is between the previous simulation step and the latest one
+     * @param alpha The interpolation fraction, from 0 up to 1
+     */
+    public void setInterpolation(double alpha) {
+        this.alpha = alpha;
+    }
+
+    /**
+     * Scrolls the view one step to the right, while the player "moves" to the right
+     */
+    public void scrollRight() {
+        offset++;
+    }
+
+    /**
+     * Scrolls the view one step to the left, while the player "moves" to the left
+     */
+    public void scrollLeft() {
+        offset--;
+    }
+
+    /**
+     * Converts a world x co-ord to its x co-ord on screen. The entity's horizontal speed acts as its parallax factor,
+     * the distance it appears to move for each step of scrolling
+     * @param worldX The x co-ord of the entity in the world
+     * @param xSpeed The horizontal speed of the entity
+     * @return The x co-ord of the entity on screen
+     */
+    public double toScreenX(double worldX, double xSpeed) {
+        return worldX - xSpeed * offset;
+    }
+
+    /**
+     * Converts a world x co-ord to the x co-ord it is drawn at, interpolating the entity and the scroll offset
+     * between the previous and latest simulation steps
+     * @param previousX The x co-ord of the entity at the start of the latest step
+     * @param worldX The x co-ord of the entity in the world
+     * @param xSpeed The horizontal speed of the entity
+     * @return The x co-ord of the entity to draw at
+     */
+    public double toDrawX(double previousX, double worldX, double xSpeed) {
+        return interpolate(previousX, worldX) - xSpeed * interpolate(previousOffset, offset);
+    }
+
+    /**
+     * Interpolates a value between its state at the previous and latest simulation steps
+     * @param previous The value at the start of the latest step
+     * @param current The value now
+     * @return The value to draw with
+     */
+    public double interpolate(double previous, double current) {
+        return previous + (current - previous) * alpha;
+    }
+
+    /**
+     * Retrieves the number of simulation steps run so far
+     * @return The current simulation tick
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Converts an x co-ord on screen to the world x co-ord of an entity with the given horizontal speed
+     * @param screenX The x co-ord on screen
+     * @param xSpeed The horizontal speed of the entity
+     * @return The x co-ord in the world
+     */
+    public double toWorldX(double screenX, double xSpeed) {
+        return screenX + xSpeed * offset;
+    }
+
+    /**
+     * Retrieves the scroll offset of the camera
+     * @return The number of steps the view has been scrolled to the right
+     */
+    public double getOffset() {
+        return offset;
+    }
+}
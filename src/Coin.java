@@ -1,28 +1,23 @@
-import bagel.Image;
-import java.util.Properties;
-
 /**
  * Represents the coins that the player collects to increase the score
  * @author Taiyo Siew-Adachi
  */
 public class Coin extends Entity implements MovesIndependentFromPlayer, InteractsWithPlayer{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
     private final int coinValue;
     private final double radius;
     private boolean collected = false;
     private static final double FLOAT_SPEED = -10.0;
 
     /**
-     * Constructor for coins called from World classes, reads and assigns values from property file
+     * Constructor for coins called from World classes, assigns values from the game configuration
      * @param x X co-ord of the coin read from the csv file
      * @param y Y co-ord of the coin boss read from the csv file
+     * @param config The configuration of the game
      */
-    public Coin(double x, double y) {
-        super(x, y,
-                Double.parseDouble(game_props.getProperty("gameObjects.coin.speed")),
-                new Image(game_props.getProperty("gameObjects.coin.image")));
-        coinValue = Integer.parseInt(game_props.getProperty("gameObjects.coin.value"));
-        radius = Double.parseDouble(game_props.getProperty("gameObjects.coin.radius"));
+    public Coin(double x, double y, GameConfig config) {
+        super(x, y, config.getCoin().getSpeed(), TextureCache.acquire(config.getCoin().getImage()));
+        coinValue = config.getCoinValue();
+        radius = config.getCoin().getRadius();
     }
 
     /**
@@ -38,13 +33,16 @@ public class Coin extends Entity implements MovesIndependentFromPlayer, Interact
     }
 
     /**
-     * Float the coin up each frame, after being collected until it is off the screen
+     * Float the coin up each frame, after being collected until it is off the screen, then retire it
      */
     @Override
     public void updatePos() {
         if (collected && getY() > -50) {
             setY(getY() + FLOAT_SPEED);
         }
+        else if (collected) {
+            retire(); // floated off the screen
+        }
     }
 
     /**
@@ -62,4 +60,31 @@ public class Coin extends Entity implements MovesIndependentFromPlayer, Interact
     public double getRadius() {
         return radius;
     }
+
+    /**
+     * Checks if the player has collected this item
+     * @return true if it has been collected, false otherwise
+     */
+    @Override
+    public boolean isConsumed() {
+        return collected;
+    }
+
+    /**
+     * A collected item that has floated away has nothing left to do, so it is not rebuilt
+     * @return false
+     */
+    @Override
+    public boolean restoreConsumed() {
+        return false;
+    }
+
+    /**
+     * Once collected, the coin has no further interaction with the player
+     * @return true if it has been collected, false otherwise
+     */
+    @Override
+    public boolean isInteractionSpent() {
+        return collected;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+/**
+ * Collision tests between entities, done directly on their co-ords and radii. Distances are compared squared, so the
+ * tests neither take a square root nor allocate, and can run for every nearby entity on every step
+ * @author Taiyo Siew-Adachi
+ */
+public final class Collision {
+
+    private Collision() {
+    }
+
+    /**
+     * Checks if two circles touch or overlap
+     * @param x1 The x co-ord of the centre of the first circle
+     * @param y1 The y co-ord of the centre of the first circle
+     * @param radius1 The radius of the first circle
+     * @param x2 The x co-ord of the centre of the second circle
+     * @param y2 The y co-ord of the centre of the second circle
+     * @param radius2 The radius of the second circle
+     * @return true if the distance between the centres is at most the sum of the radii, false otherwise
+     */
+    public static boolean circlesOverlap(double x1, double y1, double radius1,
+                                         double x2, double y2, double radius2) {
+        return isWithin(x1, y1, x2, y2, radius1 + radius2);
+    }
+
+    /**
+     * Checks if two points are at most a given distance apart
+     * @param x1 The x co-ord of the first point
+     * @param y1 The y co-ord of the first point
+     * @param x2 The x co-ord of the second point
+     * @param y2 The y co-ord of the second point
+     * @param range The greatest distance the points can be apart
+     * @return true if the points are within range of each other, false otherwise
+     */
+    public static boolean isWithin(double x1, double y1, double x2, double y2, double range) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return dx * dx + dy * dy <= range * range;
+    }
+}
@@ -0,0 +1,104 @@
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Backend for the batched sprite renderer that draws nothing but counts the draw calls and quads it is given, so the
+ * batching can be checked and benchmarked on machines without a GPU
+ * @author Taiyo Siew-Adachi
+ */
+public class CountingBatchBackend implements SpriteBatchBackend {
+    private int textureCount = 0;
+    private long textureBytes = 0;
+    private long drawCalls = 0;
+    private long quads = 0;
+    private int targetCount = 0;
+    private long targetDraws = 0;
+    private int currentTarget = 0;
+
+    @Override
+    public int createTexture(int width, int height, ByteBuffer rgba) {
+        textureBytes += (long) width * height * 4;
+        return ++textureCount;
+    }
+
+    @Override
+    public int createTarget(int width, int height) {
+        targetCount++;
+        return createTexture(width, height, null);
+    }
+
+    @Override
+    public void beginTarget(int texture) {
+        if (currentTarget != 0) {
+            throw new IllegalStateException("Already drawing into target " + currentTarget);
+        }
+        currentTarget = texture;
+        targetDraws++;
+    }
+
+    @Override
+    public void endTarget() {
+        currentTarget = 0;
+    }
+
+    @Override
+    public void drawQuads(int texture, FloatBuffer vertices, int quadCount) {
+        drawCalls++;
+        quads += quadCount;
+    }
+
+    @Override
+    public void dispose() {
+        textureCount = 0;
+        textureBytes = 0;
+        targetCount = 0;
+    }
+
+    /**
+     * Retrieves the number of textures uploaded
+     * @return The number of textures
+     */
+    public int getTextureCount() {
+        return textureCount;
+    }
+
+    /**
+     * Retrieves the memory of the textures uploaded
+     * @return The number of bytes of texture data
+     */
+    public long getTextureBytes() {
+        return textureBytes;
+    }
+
+    /**
+     * Retrieves the number of draw calls made so far
+     * @return The number of draw calls
+     */
+    public long getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Retrieves the number of quads drawn so far
+     * @return The number of quads
+     */
+    public long getQuads() {
+        return quads;
+    }
+
+    /**
+     * Retrieves the number of offscreen targets created
+     * @return The number of targets
+     */
+    public int getTargetCount() {
+        return targetCount;
+    }
+
+    /**
+     * Retrieves the number of times a target has been drawn into so far
+     * @return The number of times
+     */
+    public long getTargetDraws() {
+        return targetDraws;
+    }
+}
@@ -1,37 +1,34 @@
-import bagel.Image;
-import java.util.Properties;
-
 /**
  * Represents the collectable double score power up items in the game
  * @author Taiyo Siew-Adachi
  */
 public class DoubleScore extends Entity implements MovesIndependentFromPlayer, InteractsWithPlayer{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
     private final double radius;
     private boolean collected = false;
     private static final double FLOAT_SPEED = -10.0;
-    private static final Timer timer = new Timer(Integer.parseInt(game_props.getProperty("gameObjects.doubleScore.maxFrames")));
 
     /**
-     * Constructor for double scores called from World classes, reads and assigns values from property file
+     * Constructor for double scores called from World classes, assigns values from the game configuration
      * @param x X co-ord of the power up, as read from the csv file
      * @param y Y co-ord of the power up, as read from the csv file
+     * @param config The configuration of the game
      */
-    public DoubleScore(double x, double y) {
-        super(x, y,
-                Double.parseDouble(game_props.getProperty("gameObjects.doubleScore.speed")),
-                new Image(game_props.getProperty("gameObjects.doubleScore.image")));
-        radius = Double.parseDouble(game_props.getProperty("gameObjects.doubleScore.radius"));
+    public DoubleScore(double x, double y, GameConfig config) {
+        super(x, y, config.getDoubleScore().getSpeed(), TextureCache.acquire(config.getDoubleScore().getImage()));
+        radius = config.getDoubleScore().getRadius();
     }
 
     /**
-     * Float the double score item up each frame, after being collected
+     * Float the double score item up each frame, after being collected until it is off the screen, then retire it
      */
     @Override
     public void updatePos() {
         if (collected && getY() > -50) {
             setY(getY() + FLOAT_SPEED);
         }
+        else if (collected) {
+            retire(); // floated off the screen
+        }
     }
 
     /**
@@ -55,10 +52,29 @@ public class DoubleScore extends Entity implements MovesIndependentFromPlayer, I
     }
 
     /**
-     * Retrieves the timer associated with the double score power
-     * @return The timer for double scores
+     * Checks if the player has collected this item
+     * @return true if it has been collected, false otherwise
+     */
+    @Override
+    public boolean isConsumed() {
+        return collected;
+    }
+
+    /**
+     * A collected item that has floated away has nothing left to do, so it is not rebuilt
+     * @return false
      */
-    public static Timer getTimer() {
-        return timer;
+    @Override
+    public boolean restoreConsumed() {
+        return false;
+    }
+
+    /**
+     * Once collected, the double score item has no further interaction with the player
+     * @return true if it has been collected, false otherwise
+     */
+    @Override
+    public boolean isInteractionSpent() {
+        return collected;
     }
 }
\ No newline at end of file
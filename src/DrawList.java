@@ -0,0 +1,140 @@
+import bagel.DrawOptions;
+import java.util.Arrays;
+
+/**
+ * Renderer that records the sprites and text drawn through it instead of drawing them, so a frame can be built on one
+ * thread and drawn on another. The list is reused from frame to frame: clearing it keeps its arrays, so recording
+ * allocates nothing once they have grown to fit a frame
+ * @author Taiyo Siew-Adachi
+ */
+public class DrawList implements Renderer {
+    private static final int INITIAL_SIZE = 256;
+    private static final byte SPRITE = 0;
+    private static final byte TEXT = 1;
+    private static final byte LAYER = 2;
+    private final Renderer measure;
+    /* The thread the renderer measuring text draws on, the only one text can be measured on */
+    private final Thread measureThread;
+    /* One entry per call, in the order they were made. Each holds the sprite or text, the co-ords, and the layer or
+       font size */
+    private byte[] kinds = new byte[INITIAL_SIZE];
+    private Object[] items = new Object[INITIAL_SIZE];
+    private DrawOptions[] options = new DrawOptions[INITIAL_SIZE];
+    private double[] xs = new double[INITIAL_SIZE];
+    private double[] ys = new double[INITIAL_SIZE];
+    private int[] values = new int[INITIAL_SIZE];
+    private int size = 0;
+    private final WorldCounters counters = new WorldCounters();
+
+    /**
+     * Constructs an empty draw list
+     * @param measure The renderer the list is drawn with, which text is measured with. Measuring text has to be done
+     *                on the thread that renderer draws on, which must be the thread constructing the list
+     */
+    public DrawList(Renderer measure) {
+        this.measure = measure;
+        measureThread = Thread.currentThread();
+    }
+
+    @Override
+    public void drawSprite(Sprite sprite, double x, double y) {
+        add(SPRITE, sprite, null, x, y, 0);
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y) {
+        add(TEXT, text, null, x, y, fontSize);
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y, DrawOptions options) {
+        add(TEXT, text, options, x, y, fontSize);
+    }
+
+    /**
+     * Measures text with the renderer the list is drawn with. Text can only be measured on the thread that
+     * constructed the list, which must be the thread it is drawn on, so anything recording on another thread
+     * measures its text up front
+     * @throws IllegalStateException if called on any other thread
+     */
+    @Override
+    public double getTextWidth(int fontSize, String text) {
+        if (Thread.currentThread() != measureThread) {
+            throw new IllegalStateException("Text can only be measured on " + measureThread.getName());
+        }
+        return measure.getTextWidth(fontSize, text);
+    }
+
+    @Override
+    public void setLayer(int layer) {
+        add(LAYER, null, null, 0, 0, layer);
+    }
+
+    /**
+     * Retrieves the counts of the world recorded with this frame, handed over to the drawing thread with the list
+     * @return The counts of the world
+     */
+    public WorldCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Records a call, growing the arrays if they are full
+     */
+    private void add(byte kind, Object item, DrawOptions option, double x, double y, int value) {
+        if (size == kinds.length) {
+            int length = size * 2;
+            kinds = Arrays.copyOf(kinds, length);
+            items = Arrays.copyOf(items, length);
+            options = Arrays.copyOf(options, length);
+            xs = Arrays.copyOf(xs, length);
+            ys = Arrays.copyOf(ys, length);
+            values = Arrays.copyOf(values, length);
+        }
+        kinds[size] = kind;
+        items[size] = item;
+        options[size] = option;
+        xs[size] = x;
+        ys[size] = y;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Draws everything recorded, in the order it was recorded
+     * @param renderer The renderer to draw with
+     */
+    public void draw(Renderer renderer) {
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] == SPRITE) {
+                renderer.drawSprite((Sprite) items[i], xs[i], ys[i]);
+            }
+            else if (kinds[i] == LAYER) {
+                renderer.setLayer(values[i]);
+            }
+            else if (options[i] == null) {
+                renderer.drawText(values[i], (String) items[i], xs[i], ys[i]);
+            }
+            else {
+                renderer.drawText(values[i], (String) items[i], xs[i], ys[i], options[i]);
+            }
+        }
+    }
+
+    /**
+     * Empties the list, keeping its arrays for the next frame
+     */
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        Arrays.fill(options, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of calls recorded
+     * @return The number of calls
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -1,25 +1,20 @@
-import bagel.Image;
-import java.util.Properties;
-
 /**
  * Represents the end flag that the player moves towards
  * @author Taiyo Siew-Adachi
  */
 public class EndFlag extends Entity implements InteractsWithPlayer{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
     private final double radius;
     private boolean collided = false;
 
     /**
-     * Constructor for end flag called from World classes, reads and assigns values from property file
+     * Constructor for end flag called from World classes, assigns values from the game configuration
      * @param x X co-ord of the enemy boss read from the csv file
      * @param y Y co-ord of the enemy boss read from the csv file
+     * @param config The configuration of the game
      */
-    public EndFlag(double x, double y) {
-        super(x, y,
-                Double.parseDouble(game_props.getProperty("gameObjects.endFlag.speed")),
-                new Image(game_props.getProperty("gameObjects.endFlag.image")));
-        radius = Double.parseDouble(game_props.getProperty("gameObjects.endFlag.radius"));
+    public EndFlag(double x, double y, GameConfig config) {
+        super(x, y, config.getEndFlag().getSpeed(), TextureCache.acquire(config.getEndFlag().getImage()));
+        radius = config.getEndFlag().getRadius();
     }
     /**
      * Changes the collided state to true, when the end flag and a player collide, meaning the game is won
@@ -1,37 +1,27 @@
-import bagel.Image;
-import java.util.Properties;
-import java.util.Random;
-import static java.lang.Math.abs;
 
 /**
  * Represents the enemies that roam around and inflicts damage to the player
  * @author Taiyo Siew-Adachi
  */
-public class Enemy extends Entity implements InflictsDamage, MovesIndependentFromPlayer, InteractsWithPlayer{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
+public class Enemy extends Entity implements InflictsDamage, Patroller, InteractsWithPlayer{
     private final double damage;
     private final double radius;
     private boolean inflicted = false;
-    private final double randSpeed;
-    private double displacement = 0;
-    private int direction;
-    private final double maxDisplacement;
+    private final Patrol patrol;
 
 
     /**
-     * Constructor for enemy called from World classes, reads and assigns values from property file
+     * Constructor for enemy called from World classes, assigns values from the game configuration
      * @param x X co-ord of the enemy read from the csv file
      * @param y Y co-ord of the enemy read from the csv file
+     * @param direction The direction it starts patrolling in: 1 for positive direction, -1 for opposite direction
+     * @param config The configuration of the game
      */
-    public Enemy(double x, double y) {
-        super(x, y,
-                Double.parseDouble(game_props.getProperty("gameObjects.coin.speed")),
-                new Image(game_props.getProperty("gameObjects.enemy.image")));
-        damage = Double.parseDouble(game_props.getProperty("gameObjects.enemy.damageSize"));
-        radius = Double.parseDouble(game_props.getProperty("gameObjects.enemy.radius"));
-        randSpeed = Double.parseDouble(game_props.getProperty("gameObjects.enemy.randomSpeed"));
-        maxDisplacement = Double.parseDouble(game_props.getProperty("gameObjects.enemy.maxRandomDisplacementX"));
-        direction = getRandDirection();
+    public Enemy(double x, double y, int direction, GameConfig config) {
+        super(x, y, config.getEnemy().getSpeed(), TextureCache.acquire(config.getEnemy().getImage()));
+        damage = config.getEnemyDamage();
+        radius = config.getEnemy().getRadius();
+        patrol = new Patrol(x, config.getEnemyRandomSpeed(), config.getEnemyMaxDisplacement(), direction);
     }
 
     /**
@@ -48,11 +38,18 @@ public class Enemy extends Entity implements InflictsDamage, MovesIndependentFro
      */
     @Override
     public void updatePos() {
-        if (abs(displacement) >= maxDisplacement) {
-            direction *= -1; // switch direction
-        }
-        setX(getX() + direction * randSpeed);
-        displacement += direction * randSpeed;
+        patrolTo(patrol.getStep() + 1);
+    }
+
+    /**
+     * Moves the object straight to where its patrol has it after the given number of world updates, so it can be
+     * left dormant while far from the player
+     * @param step The number of world updates since the level started
+     */
+    @Override
+    public void patrolTo(long step) {
+        patrol.moveTo(step);
+        setX(patrol.getX());
     }
 
     /**
@@ -66,17 +63,6 @@ public class Enemy extends Entity implements InflictsDamage, MovesIndependentFro
         }
     }
 
-    /**
-     * Generates a random direction for an enemy to move.
-     * @return An integer representing the direction: 1 for positive direction, -1 for opposite direction
-     */
-    private int getRandDirection() {
-        if ((new Random()).nextBoolean()) {
-            return 1;
-        }
-        return -1;
-    }
-
     /**
      * Retrieves the radius of the object
      * @return The radius of the object
@@ -85,4 +71,31 @@ public class Enemy extends Entity implements InflictsDamage, MovesIndependentFro
         return radius;
     }
 
+    /**
+     * Checks if the enemy has already inflicted its damage on the player
+     * @return true if it has inflicted damage, false otherwise
+     */
+    @Override
+    public boolean isConsumed() {
+        return inflicted;
+    }
+
+    /**
+     * Marks a rebuilt enemy as having already inflicted its damage, so it does not damage the player twice
+     * @return true, the enemy is still drawn and still moves
+     */
+    @Override
+    public boolean restoreConsumed() {
+        inflicted = true;
+        return true;
+    }
+
+    /**
+     * Once it has inflicted its damage, the enemy has no further interaction with the player
+     * @return true if it has inflicted damage, false otherwise
+     */
+    @Override
+    public boolean isInteractionSpent() {
+        return inflicted;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,4 @@
-import bagel.Image;
-import java.util.Properties;
-import java.util.Random;
+import java.util.SplittableRandom;
 import static java.lang.Math.abs;
 
 /**
@@ -8,29 +6,29 @@ import static java.lang.Math.abs;
  * @author Taiyo Siew-Adachi
  */
 public class EnemyBoss extends Entity implements ShootsFireballs, HasHealth, MovesIndependentFromPlayer{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
     private final double radius;
     private final double activationRadius;
+    private final double fallLimit;
     private double health;
     private final boolean facingRight = false;
-    private final Random random = new Random();
+    private final SplittableRandom random;
     private final Timer fireballCharge;
-    private final ScreenMessages fightMsg; // customisation
 
     /**
-     * Constructor for enemy boss, reads and assigns values from property file
+     * Constructor for enemy boss, assigns values from the game configuration
      * @param x X co-ord of the enemy boss read from the csv file
      * @param y Y co-ord of the enemy boss read from the csv file
+     * @param random The random number stream deciding when the enemy boss shoots
+     * @param config The configuration of the game
      */
-    public EnemyBoss(double x, double y) {
-        super(x, y,
-                Double.parseDouble(game_props.getProperty("gameObjects.enemyBoss.speed")),
-                new Image(game_props.getProperty("gameObjects.enemyBoss.image")));
-        health = Double.parseDouble(game_props.getProperty("gameObjects.enemyBoss.health"));
-        radius = Double.parseDouble(game_props.getProperty("gameObjects.enemyBoss.radius"));
-        activationRadius = Double.parseDouble(game_props.getProperty("gameObjects.enemyBoss.activationRadius"));
+    public EnemyBoss(double x, double y, SplittableRandom random, GameConfig config) {
+        super(x, y, config.getEnemyBoss().getSpeed(), TextureCache.acquire(config.getEnemyBoss().getImage()));
+        health = config.getEnemyBossHealthValue();
+        radius = config.getEnemyBoss().getRadius();
+        activationRadius = config.getEnemyBossActivationRadius();
+        fallLimit = config.getWindowHeight() + 120;
         fireballCharge = new Timer(100);
-        fightMsg = new ScreenMessages(); // customisation
+        this.random = random;
     }
 
     /**
@@ -39,11 +37,7 @@ public class EnemyBoss extends Entity implements ShootsFireballs, HasHealth, Mov
      * @return boolean value: True if in range, False if out of range
      */
     public boolean inFireballRange(Player player) {
-        if (abs(player.getX() - getX()) <= activationRadius && this.isAlive()) {
-            fightMsg.fight(); // customisation
-            return true;
-        }
-        return false;
+        return (abs(player.getScreenX() - getScreenX()) <= activationRadius && this.isAlive());
     }
 
     /**
@@ -66,11 +60,12 @@ public class EnemyBoss extends Entity implements ShootsFireballs, HasHealth, Mov
     }
 
     /**
-     * Creates a new fireball object to be shot by the enemy boss
-     * @return The newly created Fireball object
+     * Shoots a fireball from the position of the enemy boss
+     * @param projectiles The projectiles of the world the fireball is shot in
+     * @return The Fireball object that was shot
      */
-    public Fireball shootFireball() {
-        return new Fireball(getX(), getY(), this, facingRight, getY());
+    public Fireball shootFireball(Projectiles projectiles) {
+        return projectiles.spawn(getScreenX(), getY(), this, facingRight, getY());
     }
 
     /**
@@ -79,8 +74,8 @@ public class EnemyBoss extends Entity implements ShootsFireballs, HasHealth, Mov
      * @return true if a collision has occurred, false otherwise
      */
     public boolean collidedWithFireball(Fireball fireball) {
-        double range = getRadius() + fireball.getRadius();
-        if (this.getPosition().distanceTo(fireball.getPosition()) <= range) {
+        if (Collision.circlesOverlap(getScreenX(), getY(), getRadius(),
+                fireball.getScreenX(), fireball.getY(), fireball.getRadius())) {
             if (!(fireball.damageInflicted()) && fireball.getShotBy() != this) {
                 return true;
             }
@@ -106,7 +101,7 @@ public class EnemyBoss extends Entity implements ShootsFireballs, HasHealth, Mov
      * Move the boss vertically, as it falls to its death until it is well off the screen
      */
     public void updatePos() {
-        if (getY() < Integer.parseInt(game_props.getProperty("windowHeight")) + 120) {
+        if (getY() < fallLimit) {
             setY(getY() + FALL_SPEED);
         }
     }
@@ -1,5 +1,3 @@
-import bagel.Image;
-import bagel.util.Point;
 
 /**
  * Represents all entities in the game
@@ -9,16 +7,23 @@ public abstract class Entity {
     private double x;
     private double y;
     private double xSpeed;
-    private Image IMAGE;
+    private final Sprite IMAGE;
+    private Camera camera;
+    private long drawOrder;
+    /* Position at the start of the simulation step the entity last moved in, for interpolated drawing */
+    private double previousX;
+    private double previousY;
+    private long movedTick = -1;
+    private boolean retired = false;
 
     /**
      * Constructs a new Entity object with the specified coordinates, speed, and image.
      * @param x The initial x-coordinate of the Entity from the csv file
      * @param y The initial y-coordinate of the Entity from the csv file
      * @param xSpeed The horizontal speed of the Entity
-     * @param image The image associated with the Entity
+     * @param image The sprite associated with the Entity
      */
-    public Entity(double x, double y, double xSpeed, Image image) {
+    public Entity(double x, double y, double xSpeed, Sprite image) {
         this.x = x;
         this.y = y;
         this.IMAGE = image;
@@ -26,39 +31,175 @@ public abstract class Entity {
     }
 
     /**
-     * Render image of the entity to the game window at co-ordinates (x,y)
+     * Render image of the entity to the game window at its co-ordinates on screen
+     * @param renderer The renderer to draw with
      */
-    public void draw() {
-        IMAGE.draw(x, y);
+    public void draw(Renderer renderer) {
+        renderer.drawSprite(IMAGE, getDrawX(), getDrawY());
     }
 
     /**
-     * Moves the entity against the player to the left, while player "moves" to the right
+     * Returns the sprite the Entity is drawn with
+     * @return The sprite of the Entity
      */
-    public void moveRight() {
-        x -= xSpeed;
+    protected Sprite getSprite() {
+        return IMAGE;
     }
 
     /**
-     * Moves the entity against the player to the right, while player "moves" to the left
+     * Releases the sprites of the Entity back to the texture cache, when the world it is in is discarded
      */
-    public void moveLeft() {
-        x += xSpeed;
+    public void releaseSprites() {
+        TextureCache.release(IMAGE);
     }
 
     /**
-     * Converts a point with an x and y value to a Point object
-     * @return Point The position of the entity in the form of an instance of Bagel Class, Point
+     * Returns the x value to draw the Entity at, interpolated between the last two simulation steps
+     * @return The x co-ord to draw the Entity at
      */
-    public Point getPosition() {
-        return new Point(x, y);
+    protected double getDrawX() {
+        if (camera == null) {
+            return x;
+        }
+        return camera.toDrawX(movedInLatestStep() ? previousX : x, x, xSpeed);
     }
 
     /**
-     * Returns the x value of the Entity
+     * Returns the y value to draw the Entity at, interpolated between the last two simulation steps
+     * @return The y co-ord to draw the Entity at
+     */
+    protected double getDrawY() {
+        if (camera == null || !movedInLatestStep()) {
+            return y;
+        }
+        return camera.interpolate(previousY, y);
+    }
+
+    /**
+     * Checks if the Entity moved during the latest simulation step
+     */
+    private boolean movedInLatestStep() {
+        return movedTick == camera.getTick();
+    }
+
+    /**
+     * Remembers the position at the start of the current simulation step before the Entity first moves in it
+     */
+    private void recordPreviousPosition() {
+        if (camera != null && movedTick != camera.getTick()) {
+            previousX = x;
+            previousY = y;
+            movedTick = camera.getTick();
+        }
+    }
+
+    /**
+     * Attaches the camera that the entity is viewed through
+     * @param camera The camera of the world the entity is in
+     */
+    public void setCamera(Camera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Returns the x value of the Entity on screen, after the camera's scroll offset is applied
+     * @return The x co-ord of the Entity on screen
+     */
+    public double getScreenX() {
+        if (camera == null) {
+            return x;
+        }
+        return camera.toScreenX(x, xSpeed);
+    }
+
+    /**
+     * Places the Entity in the world at the given x value on screen, used for entities spawned mid-game
+     * @param screenX The x co-ord on screen to place the Entity at
+     */
+    public void setScreenX(double screenX) {
+        if (camera == null) {
+            x = screenX;
+        }
+        else {
+            x = camera.toWorldX(screenX, xSpeed);
+            /* Spawned this step, so there is no earlier position to interpolate from */
+            previousX = x;
+            previousY = y;
+            movedTick = camera.getTick();
+        }
+    }
+
+    /**
+     * Checks whether the entity can be skipped when drawing while it is outside the game window. Entities with
+     * sprites much wider than the window should override this to always be drawn
+     * @return true if the entity can be culled, false if it must always be drawn
+     */
+    public boolean isCullable() {
+        return true;
+    }
+
+    /**
+     * Returns the position of the Entity in the order the world draws its entities, later entities are drawn on top
+     * @return The draw order of the Entity
+     */
+    public long getDrawOrder() {
+        return drawOrder;
+    }
+
+    /**
+     * Assigns the position of the Entity in the order the world draws its entities
+     * @param drawOrder The draw order of the Entity
+     */
+    public void setDrawOrder(long drawOrder) {
+        this.drawOrder = drawOrder;
+    }
+
+    /**
+     * Checks if the Entity has retired, having nothing left to do in the world. Retired entities are no longer
+     * updated, drawn or collided, and are swept out of the world at the end of the step they retire in
+     * @return true if the Entity has retired, false if it is alive
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Retires the Entity, once it has nothing left to do in the world
+     */
+    protected void retire() {
+        retired = true;
+    }
+
+    /**
+     * Checks if the player has used up the Entity, such as by collecting it, so that when its part of the level is
+     * streamed out and back in it is not reset to how it started
+     * @return false by default, as most entities cannot be used up
+     */
+    public boolean isConsumed() {
+        return false;
+    }
+
+    /**
+     * Puts an Entity that was rebuilt by level streaming back into the used up state it was in when streamed out
+     * @return true if the Entity should be added back to the world, false if it has nothing left to do
+     */
+    public boolean restoreConsumed() {
+        return true;
+    }
+
+    /**
+     * Returns the horizontal speed of the Entity, how far it appears to move for each step the view scrolls
+     * @return The horizontal speed of the Entity
+     */
+    public double getXSpeed() {
+        return xSpeed;
+    }
+
+    /**
+     * Returns the x value of the Entity in the world
      * @return x The x co-ord of the Entity
      */
-    protected double getX() {
+    public double getX() {
         return x;
     }
 
@@ -66,7 +207,7 @@ public abstract class Entity {
      * Returns the y value of the Entity
      * @return y The y co-ord of the Entity
      */
-    protected double getY() {
+    public double getY() {
         return y;
     }
 
@@ -75,6 +216,7 @@ public abstract class Entity {
      * @param x The x co-ord of the Entity
      */
     public void setX(double x) {
+        recordPreviousPosition();
         this.x = x;
     }
 
@@ -83,6 +225,7 @@ public abstract class Entity {
      * @param y The y co-ord of the Entity
      */
     protected void setY(double y) {
+        recordPreviousPosition();
         this.y = y;
     }
 }
@@ -0,0 +1,46 @@
+/**
+ * The types of entity that can be placed in a level file, named as they are written in the csv files. Declared in
+ * the order they are drawn, from back to front
+ * @author Taiyo Siew-Adachi
+ */
+public enum EntityType {
+    PLATFORM(false),
+    END_FLAG(false),
+    FLYING_PLATFORM(true),
+    ENEMY(true),
+    COIN(true),
+    DOUBLE_SCORE(true),
+    INVINCIBLE_POWER(true),
+    ENEMY_BOSS(false),
+    PLAYER(false);
+
+    private static final EntityType[] VALUES = values();
+    private final boolean streamed;
+
+    EntityType(boolean streamed) {
+        this.streamed = streamed;
+    }
+
+    /**
+     * Finds the entity type with the given name
+     * @param name The name of the type as written in a level file
+     * @return The entity type, or null if there is no type with that name
+     */
+    public static EntityType fromName(String name) {
+        for (EntityType type: VALUES) {
+            if (type.name().equals(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if entities of this type are streamed in and out with the part of the level around the player. The
+     * platform, end flag, enemy boss and player are kept for the whole level
+     * @return true if entities of this type are streamed, false otherwise
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+}
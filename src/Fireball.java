@@ -1,20 +1,17 @@
-import bagel.Image;
-import java.util.Properties;
-
 /**
  * Represents the fireballs in the game shot by both player and enemy boss
  * @author Taiyo Siew-Adachi
  */
 public class Fireball extends Entity implements InflictsDamage, MovesIndependentFromPlayer, InteractsWithPlayer{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
+    private static final double INITIAL_Y_SPEED = 5;
     private final double trajectorySpeed;
-    private final double radius;
-    private boolean inflicted = false;
     private final double damage;
-    private final double WINDOW_BOUNDARY;
-    private final ShootsFireballs shotBy;
-    private int direction = 1;
-    private double ySpeed = 5;
+    private final double radius;
+    private final double windowBoundary;
+    private boolean inflicted;
+    private ShootsFireballs shotBy;
+    private int direction;
+    private double ySpeed;
     private double groundY;
 
     /**
@@ -23,21 +20,35 @@ public class Fireball extends Entity implements InflictsDamage, MovesIndependent
      * @param y The initial y-coordinate of the Fireball
      * @param shotBy The entity that shot the fireball
      * @param shotToTheRight Indicates whether the fireball is shot to the right
+     * @param groundY The y-coordinate the fireball bounces off
+     * @param config The configuration of the game
      */
-    public Fireball(double x, double y, ShootsFireballs shotBy, boolean shotToTheRight, double groundY) {
-        super(x, y,
-                /* Assuming the fireball moves according to player lateral movement at same speed as an enemy */
-                Double.parseDouble(game_props.getProperty("gameObjects.enemy.speed")),
-                new Image(game_props.getProperty("gameObjects.fireball.image")));
+    public Fireball(double x, double y, ShootsFireballs shotBy, boolean shotToTheRight, double groundY,
+                    GameConfig config) {
+        super(x, y, config.getFireball().getSpeed(), TextureCache.acquire(config.getFireball().getImage()));
+        trajectorySpeed = config.getFireball().getTrajectorySpeed();
+        damage = config.getFireballDamage();
+        radius = config.getFireball().getRadius();
+        windowBoundary = config.getWindowWidth();
+        reset(x, y, shotBy, shotToTheRight, groundY);
+    }
+
+    /**
+     * Reuses this fireball for a new shot, resetting it to the state of a newly constructed fireball
+     * @param screenX The initial x-coordinate of the Fireball on screen
+     * @param y The initial y-coordinate of the Fireball
+     * @param shotBy The entity that shot the fireball
+     * @param shotToTheRight Indicates whether the fireball is shot to the right
+     * @param groundY The y-coordinate the fireball bounces off
+     */
+    public void reset(double screenX, double y, ShootsFireballs shotBy, boolean shotToTheRight, double groundY) {
+        setY(y);
+        setScreenX(screenX);
         this.shotBy = shotBy;
-        trajectorySpeed = Double.parseDouble(game_props.getProperty("gameObjects.fireball.speed"));
-        damage = Double.parseDouble(game_props.getProperty("gameObjects.fireball.damageSize"));
-        radius = Double.parseDouble(game_props.getProperty("gameObjects.fireball.radius"));
-        WINDOW_BOUNDARY = Integer.parseInt(game_props.getProperty("windowWidth"));
-        if (!shotToTheRight) {
-            direction = -1;
-        }
         this.groundY = groundY;
+        direction = shotToTheRight ? 1 : -1;
+        ySpeed = INITIAL_Y_SPEED;
+        inflicted = false;
     }
 
     /**
@@ -69,7 +80,7 @@ public class Fireball extends Entity implements InflictsDamage, MovesIndependent
         if (inflicted) {
             return true;
         }
-        if (getX() < 0 || getX() > WINDOW_BOUNDARY) {
+        if (getScreenX() < 0 || getScreenX() > windowBoundary) {
             return true;
         }
         return false;
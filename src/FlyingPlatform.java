@@ -1,35 +1,26 @@
-import bagel.Image;
-import java.util.Properties;
-import java.util.Random;
 import static java.lang.Math.abs;
 
 /**
  * Represents the flying platforms in the game, player can land on these
  * @author Taiyo Siew-Adachi
  */
-public class FlyingPlatform extends Entity implements MovesIndependentFromPlayer, InteractsWithPlayer{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
+public class FlyingPlatform extends Entity implements Patroller, InteractsWithPlayer{
     private final double halfLength;
     private final double halfHeight;
-    private final double randSpeed;
-    private double displacement = 0;
-    private double direction;
-    private final double maxDisplacement;
+    private final Patrol patrol;
 
     /**
-     * Constructor for enemy boss called from World classes, reads and assigns values from property file
+     * Constructor for flying platforms called from World classes, assigns values from the game configuration
      * @param x X co-ord of the flying platform read from the csv file
      * @param y Y co-ord of the flying platform read from the csv file
+     * @param direction The direction it starts patrolling in: 1 for positive direction, -1 for opposite direction
+     * @param config The configuration of the game
      */
-    public FlyingPlatform(double x, double y) {
-        super(x, y,
-                Double.parseDouble(game_props.getProperty("gameObjects.flyingPlatform.speed")),
-                new Image(game_props.getProperty("gameObjects.flyingPlatform.image")));
-        halfLength = Double.parseDouble(game_props.getProperty("gameObjects.flyingPlatform.halfLength"));
-        halfHeight = Double.parseDouble(game_props.getProperty("gameObjects.flyingPlatform.halfHeight"));
-        randSpeed = Double.parseDouble(game_props.getProperty("gameObjects.flyingPlatform.randomSpeed"));
-        maxDisplacement = Double.parseDouble(game_props.getProperty("gameObjects.flyingPlatform.maxRandomDisplacementX"));
-        direction = getRandDirection();
+    public FlyingPlatform(double x, double y, int direction, GameConfig config) {
+        super(x, y, config.getFlyingPlatform().getSpeed(), TextureCache.acquire(config.getFlyingPlatform().getImage()));
+        halfLength = config.getFlyingPlatformHalfLength();
+        halfHeight = config.getFlyingPlatformHalfHeight();
+        patrol = new Patrol(x, config.getFlyingPlatformRandomSpeed(), config.getFlyingPlatformMaxDisplacement(), direction);
     }
 
 
@@ -39,7 +30,7 @@ public class FlyingPlatform extends Entity implements MovesIndependentFromPlayer
      * @return true if there is a collision, false if not
      */
     public boolean checkCollisionWithPlayer(Player player) {
-        return (abs(player.getX() - getX()) < halfLength && (getY() - player.getY()) <= halfHeight &&
+        return (abs(player.getScreenX() - getScreenX()) < halfLength && (getY() - player.getY()) <= halfHeight &&
                 (getY() - player.getY()) >= halfHeight - 1);
     }
 
@@ -59,22 +50,18 @@ public class FlyingPlatform extends Entity implements MovesIndependentFromPlayer
      */
     @Override
     public void updatePos() {
-        if (abs(displacement) >= maxDisplacement) {
-            direction *= -1; // switch direction
-        }
-        setX(getX() + direction * randSpeed);
-        displacement += direction * randSpeed;
+        patrolTo(patrol.getStep() + 1);
     }
 
     /**
-     * Generates a random direction for a flying platform to move.
-     * @return An integer representing the direction: 1 for positive direction, -1 for opposite direction
+     * Moves the object straight to where its patrol has it after the given number of world updates, so it can be
+     * left dormant while far from the player
+     * @param step The number of world updates since the level started
      */
-    private int getRandDirection() {
-        if ((new Random()).nextBoolean()) {
-            return 1;
-        }
-        return -1;
+    @Override
+    public void patrolTo(long step) {
+        patrol.moveTo(step);
+        setX(patrol.getX());
     }
 
     /**
@@ -85,6 +72,15 @@ public class FlyingPlatform extends Entity implements MovesIndependentFromPlayer
         return halfLength;
     }
 
+    /**
+     * Retrieves the reach of the flying platform, which is its half-length as collisions are checked horizontally
+     * @return The reach of the flying platform for the broadphase
+     */
+    @Override
+    public double getInteractionReach() {
+        return Math.max(halfLength, halfHeight);
+    }
+
     /**
      * Returns 0, as the collision for flying platform is more complex than just radius
      * @return Dummy int
@@ -0,0 +1,192 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the simulation stage of each frame on its own thread, one frame ahead of the drawing on the Bagel thread, so
+ * a slow draw does not hold up the simulation and the two overlap on two cores. Each frame the Bagel thread hands
+ * over its input and wakes the simulation, which steps the world and records the frame into a pipelined renderer,
+ * then draws the newest frame the simulation has finished. Inputs are handed over through an atomic, and frames
+ * through the renderer's pooled draw lists, so neither thread takes a lock. On a machine with one core the stage runs
+ * on the Bagel thread instead, before drawing
+ * @author Taiyo Siew-Adachi
+ */
+public class FramePipeline {
+    private static final int HELD_MASK = 0xFF;
+    private static final int PRESSED_SHIFT = 8;
+    private final PipelinedRenderer renderer;
+    private final Thread thread;
+    /* The thread the stage runs on, so its allocation can be read */
+    private final long stageThreadId;
+    /* The keys held in the low byte and the presses not yet seen by the simulation in the byte above */
+    private final AtomicInteger pendingInput = new AtomicInteger();
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    /* Only touched by the thread running the stage */
+    private final InputState stageInput = new InputState();
+    private volatile Stage stage;
+    private volatile boolean running = false;
+    /* The thread waiting in setStage for the frame being run to finish, woken by the simulation thread */
+    private volatile Thread stageChanger;
+    private volatile long lastStageNanos = 0;
+
+    /**
+     * The simulation stage of a frame
+     */
+    public interface Stage {
+        /**
+         * Runs the simulation steps due, then draws the frame
+         * @param inputState The keys handed over by the Bagel thread, with presses not yet seen by a step
+         * @param renderer The renderer to record the frame with
+         * @param counters The counts of the world to hand over with the frame, to be filled in by the stage
+         */
+        void runFrame(InputState inputState, Renderer renderer, WorldCounters counters);
+    }
+
+    /**
+     * Constructs the pipeline, starting the simulation thread if there is more than one core
+     * @param measure The renderer the frames are drawn with, which text is measured with
+     */
+    public FramePipeline(Renderer measure) {
+        this(measure, Runtime.getRuntime().availableProcessors() > 1);
+    }
+
+    /**
+     * Constructs the pipeline
+     * @param measure The renderer the frames are drawn with, which text is measured with
+     * @param threaded Whether to run the stage on its own thread, otherwise it runs on the thread handing over input,
+     *                 which must be the thread constructing the pipeline
+     */
+    public FramePipeline(Renderer measure, boolean threaded) {
+        renderer = new PipelinedRenderer(measure);
+        if (threaded) {
+            thread = new Thread(this::runStages, "simulation");
+            thread.setDaemon(true);
+            thread.start();
+            stageThreadId = thread.getId();
+        }
+        else {
+            thread = null;
+            stageThreadId = Thread.currentThread().getId();
+        }
+    }
+
+    /**
+     * Waits to be woken for each frame, then runs the stage if there is one
+     */
+    private void runStages() {
+        while (true) {
+            if (!frameRequested.getAndSet(false)) {
+                LockSupport.park(this);
+                continue;
+            }
+            running = true;
+            Stage current = stage;
+            if (current != null) {
+                runStage(current);
+            }
+            running = false;
+            Thread waiting = stageChanger;
+            if (waiting != null) {
+                LockSupport.unpark(waiting);
+            }
+        }
+    }
+
+    /**
+     * Runs the stage with the input handed over so far, then hands the frame over to be drawn
+     */
+    private void runStage(Stage current) {
+        long start = System.nanoTime();
+        int input = pendingInput.getAndUpdate(bits -> bits & HELD_MASK);
+        stageInput.latch(input & HELD_MASK, input >>> PRESSED_SHIFT);
+        current.runFrame(stageInput, renderer, renderer.getRecordingCounters());
+        renderer.publish();
+        lastStageNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Sets the stage run each frame, waiting for the current one to finish the frame it is running first. The waiting
+     * thread is parked until the simulation thread wakes it at the end of the frame. Frames of the old stage are no
+     * longer drawn
+     * @param stage The stage, or null to stop running one
+     */
+    public void setStage(Stage stage) {
+        this.stage = null;
+        stageChanger = Thread.currentThread();
+        while (running) {
+            LockSupport.park(this);
+        }
+        stageChanger = null;
+        renderer.clear();
+        pendingInput.updateAndGet(bits -> bits & HELD_MASK);
+        stageInput.clearPresses();
+        this.stage = stage;
+    }
+
+    /**
+     * Hands over the input for a frame and starts the simulation stage of it. Called on the Bagel thread
+     * @param inputState The keys read this frame
+     */
+    public void submit(InputState inputState) {
+        pendingInput.accumulateAndGet(inputState.getHeld() | inputState.getPressed() << PRESSED_SHIFT,
+                (previous, next) -> (next & HELD_MASK) | ((previous | next) & ~HELD_MASK));
+        if (thread == null) {
+            Stage current = stage;
+            if (current != null) {
+                runStage(current);
+            }
+        }
+        else {
+            frameRequested.set(true);
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Draws the newest frame the simulation has finished. Called on the Bagel thread
+     * @param target The renderer to draw with
+     */
+    public void drawLatest(Renderer target) {
+        renderer.drawLatest(target);
+    }
+
+    /**
+     * Retrieves the counts of the world handed over with the frame last drawn. Called on the Bagel thread
+     * @return The counts of the world for the frame last drawn
+     */
+    public WorldCounters getDrawnCounters() {
+        return renderer.getDrawnCounters();
+    }
+
+    /**
+     * Retrieves the renderer the stage records frames with, to construct things that draw through it
+     * @return The pipelined renderer
+     */
+    public Renderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Checks whether the stage runs on its own thread
+     * @return true if it runs on its own thread, false if it runs on the thread handing over input
+     */
+    public boolean isThreaded() {
+        return thread != null;
+    }
+
+    /**
+     * Retrieves the id of the thread the stage runs on, to read how much it has allocated
+     * @return The id of the simulation thread, or of the Bagel thread if the stage runs on it
+     */
+    public long getStageThreadId() {
+        return stageThreadId;
+    }
+
+    /**
+     * Retrieves the time the stage took to run its last frame
+     * @return The time in nanoseconds
+     */
+    public long getLastStageNanos() {
+        return lastStageNanos;
+    }
+}
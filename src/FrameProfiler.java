@@ -0,0 +1,167 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Always on timing of each stage of a frame, kept in a latency histogram per stage so the percentiles and longest
+ * times can be written out at the end of a level. Timing a stage takes one call to System.nanoTime and a histogram
+ * update, and the disabled profiler skips even the clock, so it can be left in the game loop
+ * @author Taiyo Siew-Adachi
+ */
+public class FrameProfiler {
+    /** The time one frame has at 60 frames per second, in nanoseconds */
+    public static final long FRAME_BUDGET_NANOS = 1_000_000_000L / 60;
+    private static final FrameProfiler DISABLED = new FrameProfiler(false);
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    /**
+     * The stages of a frame that are timed
+     */
+    public enum Phase {
+        /** The whole of ShadowMario.update */
+        FRAME,
+        /** Reading the keys into the input state */
+        INPUT,
+        /** One simulation step of the world, including the stages below it */
+        STEP,
+        /** Streaming chunks of the level in and out */
+        STREAMING,
+        /** Moving the entities that move on their own */
+        POSITIONS,
+        /** Finding and applying collisions with the player, and moving and colliding fireballs */
+        COLLISIONS,
+        /** Sweeping retired entities out of the world */
+        REMOVAL,
+        /** Drawing the entities of the world, into a draw list when the simulation runs on its own thread */
+        DRAW_WORLD,
+        /** Drawing the score, health and power ups, into a draw list when the simulation runs on its own thread */
+        SCREEN_MESSAGES,
+        /** Drawing the draw list handed over by the simulation thread */
+        DRAW_LIST
+    }
+
+    private final boolean enabled;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+    private final long[] overBudget = new long[Phase.values().length];
+
+    /**
+     * Constructs a profiler with empty histograms
+     */
+    public FrameProfiler() {
+        this(true);
+    }
+
+    private FrameProfiler(boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Retrieves the profiler that records nothing, for when no stages are being timed
+     * @return The disabled profiler
+     */
+    public static FrameProfiler disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Reads the clock at the start of a stage
+     * @return The current time in nanoseconds, or 0 if the profiler is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time a stage took, from its start until now
+     * @param phase The stage that finished
+     * @param startNanos The time the stage started, from start or the previous call to record
+     * @return The current time, to be used as the start of the next stage
+     */
+    public long record(Phase phase, long startNanos) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long nanos = now - startNanos;
+        histograms[phase.ordinal()].record(nanos);
+        if (nanos > FRAME_BUDGET_NANOS) {
+            overBudget[phase.ordinal()]++;
+        }
+        return now;
+    }
+
+    /**
+     * Retrieves the histogram of a stage
+     * @param phase The stage
+     * @return The histogram of the times the stage took
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * Forgets every time recorded, when a new level starts
+     */
+    public void reset() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i].reset();
+            overBudget[i] = 0;
+        }
+    }
+
+    /**
+     * Writes a row per stage to a csv file, with the number of times it ran, its mean, 50th, 99th and 99.9th
+     * percentile and longest times in nanoseconds, and how many times it took longer than a whole frame
+     * @param file The path to write to, its directory is created if needed
+     * @throws IOException if the file cannot be written
+     */
+    public void writeCsv(Path file) throws IOException {
+        try (BufferedWriter writer = newWriter(file)) {
+            writer.write("phase,count,mean_ns,p50_ns,p99_ns,p99.9_ns,max_ns,over_budget\n");
+            for (Phase phase: Phase.values()) {
+                LatencyHistogram histogram = getHistogram(phase);
+                writer.write(String.format(Locale.ROOT, "%s,%d,%.0f,%d,%d,%d,%d,%d%n", phase, histogram.getCount(),
+                        histogram.getMean(), histogram.getPercentile(PERCENTILES[0]),
+                        histogram.getPercentile(PERCENTILES[1]), histogram.getPercentile(PERCENTILES[2]),
+                        histogram.getMax(), overBudget[phase.ordinal()]));
+            }
+        }
+    }
+
+    /**
+     * Writes the same figures as the csv file to a json file, with the level and seed they were recorded on
+     * @param file The path to write to, its directory is created if needed
+     * @param level The number of the level played
+     * @param seed The seed of the level's world
+     * @throws IOException if the file cannot be written
+     */
+    public void writeJson(Path file, int level, long seed) throws IOException {
+        try (BufferedWriter writer = newWriter(file)) {
+            writer.write(String.format(Locale.ROOT, "{%n  \"level\": %d,%n  \"seed\": %d,%n  \"budgetNs\": %d,%n" +
+                    "  \"phases\": {%n", level, seed, FRAME_BUDGET_NANOS));
+            Phase[] phases = Phase.values();
+            for (int i = 0; i < phases.length; i++) {
+                LatencyHistogram histogram = getHistogram(phases[i]);
+                writer.write(String.format(Locale.ROOT, "    \"%s\": {\"count\": %d, \"meanNs\": %.0f, \"p50Ns\": %d, " +
+                                "\"p99Ns\": %d, \"p99.9Ns\": %d, \"maxNs\": %d, \"overBudget\": %d}%s%n",
+                        phases[i], histogram.getCount(), histogram.getMean(),
+                        histogram.getPercentile(PERCENTILES[0]), histogram.getPercentile(PERCENTILES[1]),
+                        histogram.getPercentile(PERCENTILES[2]), histogram.getMax(), overBudget[i],
+                        i < phases.length - 1 ? "," : ""));
+            }
+            writer.write(String.format("  }%n}%n"));
+        }
+    }
+
+    private static BufferedWriter newWriter(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        return Files.newBufferedWriter(file);
+    }
+}
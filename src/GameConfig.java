@@ -0,0 +1,672 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Immutable, typed configuration of the game, read from the properties files once at startup and validated up front.
+ * Passed to the worlds, entities and screen messages so no strings are parsed while the game is running
+ * @author Taiyo Siew-Adachi
+ */
+public class GameConfig {
+    private final int windowWidth;
+    private final int windowHeight;
+    private final String font;
+    private final String backgroundImage;
+    private final String[] levelFiles;
+    private final String replayDirectory;
+    private final String profileDirectory;
+
+    /* Screen message positions and font sizes */
+    private final TextStyle title;
+    private final TextStyle score;
+    private final TextStyle message;
+    private final TextStyle instruction;
+    private final TextStyle playerHealth;
+    private final TextStyle enemyBossHealth;
+    private final String titleText;
+    private final String scoreText;
+    private final String healthText;
+
+    /* Game objects */
+    private final EntityConfig player;
+    private final String playerImageLeft;
+    private final double playerHealthValue;
+    private final EntityConfig enemy;
+    private final double enemyDamage;
+    private final double enemyRandomSpeed;
+    private final double enemyMaxDisplacement;
+    private final EntityConfig enemyBoss;
+    private final double enemyBossHealthValue;
+    private final double enemyBossActivationRadius;
+    private final EntityConfig platform;
+    private final EntityConfig flyingPlatform;
+    private final double flyingPlatformHalfLength;
+    private final double flyingPlatformHalfHeight;
+    private final double flyingPlatformRandomSpeed;
+    private final double flyingPlatformMaxDisplacement;
+    private final EntityConfig coin;
+    private final int coinValue;
+    private final EntityConfig fireball;
+    private final double fireballDamage;
+    private final EntityConfig doubleScore;
+    private final int doubleScoreMaxFrames;
+    private final EntityConfig invinciblePower;
+    private final int invinciblePowerMaxFrames;
+    private final EntityConfig endFlag;
+
+    /**
+     * Reads the game and message properties files and builds the configuration from them
+     * @param gameFile The path to the game properties file
+     * @param messageFile The path to the message properties file
+     * @return The configuration
+     * @throws IllegalArgumentException if any value is missing or invalid, listing every problem found
+     */
+    public static GameConfig load(String gameFile, String messageFile) {
+        return new GameConfig(IOUtils.readPropertiesFile(gameFile), IOUtils.readPropertiesFile(messageFile));
+    }
+
+    /**
+     * Builds the configuration from properties that have already been read
+     * @param game_props The game properties
+     * @param message_props The message properties
+     * @throws IllegalArgumentException if any value is missing or invalid, listing every problem found
+     */
+    public GameConfig(Properties game_props, Properties message_props) {
+        Reader game = new Reader(game_props);
+        Reader messages = new Reader(message_props);
+        windowWidth = game.positiveInt("windowWidth");
+        windowHeight = game.positiveInt("windowHeight");
+        font = game.string("font");
+        backgroundImage = game.string("backgroundImage");
+        levelFiles = new String[] {game.string("level1File"), game.string("level2File"), game.string("level3File")};
+        replayDirectory = game.string("replayDirectory");
+        profileDirectory = game.string("profileDirectory");
+
+        title = new TextStyle(game.positiveInt("title.fontSize"), game.decimal("title.x"), game.decimal("title.y"));
+        score = new TextStyle(game.positiveInt("score.fontSize"), game.decimal("score.x"), game.decimal("score.y"));
+        message = new TextStyle(game.positiveInt("message.fontSize"), 0, game.decimal("message.y"));
+        instruction = new TextStyle(game.positiveInt("instruction.fontSize"), 0, game.decimal("instruction.y"));
+        playerHealth = new TextStyle(game.positiveInt("playerHealth.fontSize"),
+                game.decimal("playerHealth.x"), game.decimal("playerHealth.y"));
+        enemyBossHealth = new TextStyle(game.positiveInt("enemyBossHealth.fontSize"),
+                game.decimal("enemyBossHealth.x"), game.decimal("enemyBossHealth.y"));
+        titleText = messages.string("title");
+        scoreText = messages.string("score");
+        healthText = messages.string("health");
+
+        player = new EntityConfig(game.string("gameObjects.player.imageRight"), 0,
+                game.positiveDecimal("gameObjects.player.radius"));
+        playerImageLeft = game.string("gameObjects.player.imageLeft");
+        playerHealthValue = game.positiveDecimal("gameObjects.player.health");
+
+        enemy = entity(game, "enemy", true);
+        enemyDamage = game.positiveDecimal("gameObjects.enemy.damageSize");
+        enemyRandomSpeed = game.positiveDecimal("gameObjects.enemy.randomSpeed");
+        enemyMaxDisplacement = game.positiveDecimal("gameObjects.enemy.maxRandomDisplacementX");
+
+        enemyBoss = entity(game, "enemyBoss", true);
+        enemyBossHealthValue = game.positiveDecimal("gameObjects.enemyBoss.health");
+        enemyBossActivationRadius = game.positiveDecimal("gameObjects.enemyBoss.activationRadius");
+
+        platform = entity(game, "platform", false);
+
+        flyingPlatform = entity(game, "flyingPlatform", false);
+        flyingPlatformHalfLength = game.positiveDecimal("gameObjects.flyingPlatform.halfLength");
+        flyingPlatformHalfHeight = game.positiveDecimal("gameObjects.flyingPlatform.halfHeight");
+        flyingPlatformRandomSpeed = game.positiveDecimal("gameObjects.flyingPlatform.randomSpeed");
+        flyingPlatformMaxDisplacement = game.positiveDecimal("gameObjects.flyingPlatform.maxRandomDisplacementX");
+
+        coin = entity(game, "coin", true);
+        coinValue = game.positiveInt("gameObjects.coin.value");
+
+        /* Assuming the fireball moves according to player lateral movement at same speed as an enemy */
+        fireball = new EntityConfig(game.string("gameObjects.fireball.image"),
+                game.decimal("gameObjects.enemy.speed"), game.positiveDecimal("gameObjects.fireball.radius"),
+                game.positiveDecimal("gameObjects.fireball.speed"));
+        fireballDamage = game.positiveDecimal("gameObjects.fireball.damageSize");
+
+        doubleScore = entity(game, "doubleScore", true);
+        doubleScoreMaxFrames = game.positiveInt("gameObjects.doubleScore.maxFrames");
+
+        invinciblePower = entity(game, "invinciblePower", true);
+        invinciblePowerMaxFrames = game.positiveInt("gameObjects.invinciblePower.maxFrames");
+
+        endFlag = entity(game, "endFlag", true);
+
+        List<String> problems = new ArrayList<>(game.problems);
+        problems.addAll(messages.problems);
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Invalid game configuration: " + String.join(", ", problems));
+        }
+    }
+
+    /**
+     * Reads the image, speed and, if it has one, radius of a game object
+     */
+    private static EntityConfig entity(Reader game, String name, boolean hasRadius) {
+        String prefix = "gameObjects." + name + ".";
+        return new EntityConfig(game.string(prefix + "image"), game.decimal(prefix + "speed"),
+                hasRadius ? game.positiveDecimal(prefix + "radius") : 0);
+    }
+
+    /**
+     * Retrieves the width of the game window
+     * @return The window width in pixels
+     */
+    public int getWindowWidth() {
+        return windowWidth;
+    }
+
+    /**
+     * Retrieves the height of the game window
+     * @return The window height in pixels
+     */
+    public int getWindowHeight() {
+        return windowHeight;
+    }
+
+    /**
+     * Retrieves the font file that all text is drawn in
+     * @return The path to the font file
+     */
+    public String getFont() {
+        return font;
+    }
+
+    /**
+     * Retrieves the background image file
+     * @return The path to the background image
+     */
+    public String getBackgroundImage() {
+        return backgroundImage;
+    }
+
+    /**
+     * Retrieves the csv file of a level
+     * @param level The number of the level, from 1 to 3
+     * @return The path to the level file
+     */
+    public String getLevelFile(int level) {
+        return levelFiles[level - 1];
+    }
+
+    /**
+     * Retrieves the directory that replays of finished levels are saved to
+     * @return The path to the replay directory
+     */
+    public String getReplayDirectory() {
+        return replayDirectory;
+    }
+
+    /**
+     * Retrieves the directory that the frame profiles of finished levels are saved to
+     * @return The path to the profile directory
+     */
+    public String getProfileDirectory() {
+        return profileDirectory;
+    }
+
+    /**
+     * Retrieves the number of levels in the game
+     * @return The number of levels
+     */
+    public int getLevelCount() {
+        return levelFiles.length;
+    }
+
+    /**
+     * Retrieves the style of the title on the start screen
+     * @return The font size and position of the title
+     */
+    public TextStyle getTitle() {
+        return title;
+    }
+
+    /**
+     * Retrieves the style of the score drawn while in play
+     * @return The font size and position of the score
+     */
+    public TextStyle getScore() {
+        return score;
+    }
+
+    /**
+     * Retrieves the style of the win and lose messages
+     * @return The font size and y co-ord of the win and lose messages
+     */
+    public TextStyle getMessage() {
+        return message;
+    }
+
+    /**
+     * Retrieves the style of the instructions on the menu screens
+     * @return The font size and y co-ord of the instructions
+     */
+    public TextStyle getInstruction() {
+        return instruction;
+    }
+
+    /**
+     * Retrieves the style of the player's health drawn while in play
+     * @return The font size and position of the player's health
+     */
+    public TextStyle getPlayerHealth() {
+        return playerHealth;
+    }
+
+    /**
+     * Retrieves the style of the enemy boss's health drawn while in play
+     * @return The font size and position of the enemy boss's health
+     */
+    public TextStyle getEnemyBossHealth() {
+        return enemyBossHealth;
+    }
+
+    /**
+     * Retrieves the title of the game, shown on the start screen and window
+     * @return The title of the game
+     */
+    public String getTitleText() {
+        return titleText;
+    }
+
+    /**
+     * Retrieves the label of the score
+     * @return The label drawn before the score
+     */
+    public String getScoreText() {
+        return scoreText;
+    }
+
+    /**
+     * Retrieves the label of health values
+     * @return The label drawn before health values
+     */
+    public String getHealthText() {
+        return healthText;
+    }
+
+    /**
+     * Retrieves the configuration of the player
+     * @return The image facing right, and radius of the player
+     */
+    public EntityConfig getPlayer() {
+        return player;
+    }
+
+    /**
+     * Retrieves the image of the player when facing left
+     * @return The image file of the player facing left
+     */
+    public String getPlayerImageLeft() {
+        return playerImageLeft;
+    }
+
+    /**
+     * Retrieves the health the player starts each level with
+     * @return The starting health of the player
+     */
+    public double getPlayerHealthValue() {
+        return playerHealthValue;
+    }
+
+    /**
+     * Retrieves the configuration of enemies
+     * @return The image, speed and radius of enemies
+     */
+    public EntityConfig getEnemy() {
+        return enemy;
+    }
+
+    /**
+     * Retrieves the damage done by touching an enemy
+     * @return The damage an enemy inflicts on the player
+     */
+    public double getEnemyDamage() {
+        return enemyDamage;
+    }
+
+    /**
+     * Retrieves the speed of the random movement of enemies
+     * @return The speed enemies move back and forth at
+     */
+    public double getEnemyRandomSpeed() {
+        return enemyRandomSpeed;
+    }
+
+    /**
+     * Retrieves how far enemies move either side of where they started
+     * @return The furthest an enemy moves from where it started before turning around
+     */
+    public double getEnemyMaxDisplacement() {
+        return enemyMaxDisplacement;
+    }
+
+    /**
+     * Retrieves the configuration of the enemy boss
+     * @return The image, speed and radius of the enemy boss
+     */
+    public EntityConfig getEnemyBoss() {
+        return enemyBoss;
+    }
+
+    /**
+     * Retrieves the health the enemy boss starts with
+     * @return The starting health of the enemy boss
+     */
+    public double getEnemyBossHealthValue() {
+        return enemyBossHealthValue;
+    }
+
+    /**
+     * Retrieves how close the player must be for the enemy boss to start shooting
+     * @return The distance from the player within which the enemy boss shoots fireballs
+     */
+    public double getEnemyBossActivationRadius() {
+        return enemyBossActivationRadius;
+    }
+
+    /**
+     * Retrieves the configuration of the ground platform
+     * @return The image and speed of the platform
+     */
+    public EntityConfig getPlatform() {
+        return platform;
+    }
+
+    /**
+     * Retrieves the configuration of flying platforms
+     * @return The image and speed of flying platforms
+     */
+    public EntityConfig getFlyingPlatform() {
+        return flyingPlatform;
+    }
+
+    /**
+     * Retrieves half the length of a flying platform, used for landing on it
+     * @return Half the length of a flying platform
+     */
+    public double getFlyingPlatformHalfLength() {
+        return flyingPlatformHalfLength;
+    }
+
+    /**
+     * Retrieves half the height of a flying platform, used for landing on it
+     * @return Half the height of a flying platform
+     */
+    public double getFlyingPlatformHalfHeight() {
+        return flyingPlatformHalfHeight;
+    }
+
+    /**
+     * Retrieves the speed of the random movement of flying platforms
+     * @return The speed flying platforms move back and forth at
+     */
+    public double getFlyingPlatformRandomSpeed() {
+        return flyingPlatformRandomSpeed;
+    }
+
+    /**
+     * Retrieves how far flying platforms move either side of where they started
+     * @return The furthest a flying platform moves from where it started before turning around
+     */
+    public double getFlyingPlatformMaxDisplacement() {
+        return flyingPlatformMaxDisplacement;
+    }
+
+    /**
+     * Retrieves the configuration of coins
+     * @return The image, speed and radius of coins
+     */
+    public EntityConfig getCoin() {
+        return coin;
+    }
+
+    /**
+     * Retrieves the score gained by collecting a coin
+     * @return The score a coin is worth
+     */
+    public int getCoinValue() {
+        return coinValue;
+    }
+
+    /**
+     * Retrieves the configuration of fireballs
+     * @return The image, speed, radius and trajectory speed of fireballs
+     */
+    public EntityConfig getFireball() {
+        return fireball;
+    }
+
+    /**
+     * Retrieves the damage done by a fireball hit
+     * @return The damage a fireball inflicts
+     */
+    public double getFireballDamage() {
+        return fireballDamage;
+    }
+
+    /**
+     * Retrieves the configuration of double score power ups
+     * @return The image, speed and radius of double score power ups
+     */
+    public EntityConfig getDoubleScore() {
+        return doubleScore;
+    }
+
+    /**
+     * Retrieves how long double score lasts once collected
+     * @return The number of frames double score lasts for
+     */
+    public int getDoubleScoreMaxFrames() {
+        return doubleScoreMaxFrames;
+    }
+
+    /**
+     * Retrieves the configuration of invincible power ups
+     * @return The image, speed and radius of invincible power ups
+     */
+    public EntityConfig getInvinciblePower() {
+        return invinciblePower;
+    }
+
+    /**
+     * Retrieves how long invincibility lasts once collected
+     * @return The number of frames invincibility lasts for
+     */
+    public int getInvinciblePowerMaxFrames() {
+        return invinciblePowerMaxFrames;
+    }
+
+    /**
+     * Retrieves the configuration of the end flag
+     * @return The image, speed and radius of the end flag
+     */
+    public EntityConfig getEndFlag() {
+        return endFlag;
+    }
+
+    /**
+     * Retrieves the image, speed and radius shared by every entity of a type
+     * @param type The type of entity
+     * @return The configuration of that type of entity
+     * @throws IllegalArgumentException if the type has no configuration
+     */
+    public EntityConfig getEntity(EntityType type) {
+        switch (type) {
+            case PLATFORM:
+                return platform;
+            case END_FLAG:
+                return endFlag;
+            case FLYING_PLATFORM:
+                return flyingPlatform;
+            case ENEMY:
+                return enemy;
+            case COIN:
+                return coin;
+            case DOUBLE_SCORE:
+                return doubleScore;
+            case INVINCIBLE_POWER:
+                return invinciblePower;
+            case ENEMY_BOSS:
+                return enemyBoss;
+            case PLAYER:
+                return player;
+            default:
+                throw new IllegalArgumentException("No configuration for entity type " + type);
+        }
+    }
+
+    /**
+     * The values shared by every game object: its image, the speed it scrolls at and its collision radius
+     */
+    public static final class EntityConfig {
+        private final String image;
+        private final double speed;
+        private final double radius;
+        private final double trajectorySpeed;
+
+        private EntityConfig(String image, double speed, double radius) {
+            this(image, speed, radius, 0);
+        }
+
+        private EntityConfig(String image, double speed, double radius, double trajectorySpeed) {
+            this.image = image;
+            this.speed = speed;
+            this.radius = radius;
+            this.trajectorySpeed = trajectorySpeed;
+        }
+
+        /**
+         * Retrieves the image the game object is drawn with
+         * @return The path to the image file of the game object
+         */
+        public String getImage() {
+            return image;
+        }
+
+        /**
+         * Retrieves the speed the game object scrolls at
+         * @return The horizontal speed the game object scrolls at
+         */
+        public double getSpeed() {
+            return speed;
+        }
+
+        /**
+         * Retrieves the collision radius of the game object
+         * @return The collision radius of the game object, 0 if it does not collide by radius
+         */
+        public double getRadius() {
+            return radius;
+        }
+
+        /**
+         * Retrieves the speed the game object travels at on its own
+         * @return The speed the game object travels at on its own, only used by fireballs
+         */
+        public double getTrajectorySpeed() {
+            return trajectorySpeed;
+        }
+    }
+
+    /**
+     * The font size and position of a piece of text on screen
+     */
+    public static final class TextStyle {
+        private final int fontSize;
+        private final double x;
+        private final double y;
+
+        private TextStyle(int fontSize, double x, double y) {
+            this.fontSize = fontSize;
+            this.x = x;
+            this.y = y;
+        }
+
+        /**
+         * Retrieves the font size of the text
+         * @return The font size of the text
+         */
+        public int getFontSize() {
+            return fontSize;
+        }
+
+        /**
+         * Retrieves the x co-ord of the text
+         * @return The x co-ord of the text
+         */
+        public double getX() {
+            return x;
+        }
+
+        /**
+         * Retrieves the y co-ord of the text
+         * @return The y co-ord of the text
+         */
+        public double getY() {
+            return y;
+        }
+    }
+
+    /**
+     * Reads typed values from properties, collecting every missing or invalid value instead of stopping at the first
+     */
+    private static final class Reader {
+        private final Properties props;
+        private final List<String> problems = new ArrayList<>();
+
+        private Reader(Properties props) {
+            this.props = props;
+        }
+
+        private String string(String key) {
+            String value = props.getProperty(key);
+            if (value == null || value.trim().isEmpty()) {
+                problems.add(key + " is missing");
+                return "";
+            }
+            return value.trim();
+        }
+
+        private double decimal(String key) {
+            String value = string(key);
+            if (value.isEmpty()) {
+                return 0;
+            }
+            try {
+                return Double.parseDouble(value);
+            }
+            catch (NumberFormatException e) {
+                problems.add(key + " is not a number: " + value);
+                return 0;
+            }
+        }
+
+        private double positiveDecimal(String key) {
+            double value = decimal(key);
+            if (value <= 0 && props.getProperty(key) != null) {
+                problems.add(key + " must be positive");
+            }
+            return value;
+        }
+
+        private int positiveInt(String key) {
+            String value = string(key);
+            if (value.isEmpty()) {
+                return 0;
+            }
+            try {
+                int parsed = Integer.parseInt(value);
+                if (parsed <= 0) {
+                    problems.add(key + " must be positive");
+                }
+                return parsed;
+            }
+            catch (NumberFormatException e) {
+                problems.add(key + " is not a whole number: " + value);
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for the structure of the game, so a recording can line garbage collection pauses and
+ * safepoints up against frames, world updates and level loads. Events are only filled in and committed when a
+ * recording has them enabled, and an event that is never committed does not escape, so they cost next to nothing
+ * when no recording is running. Record with java -XX:StartFlightRecording=filename=game.jfr ShadowMario
+ * @author Taiyo Siew-Adachi
+ */
+public final class GameEvents {
+    private static final String CATEGORY = "Shadow Mario";
+
+    private GameEvents() {
+    }
+
+    /**
+     * One call to ShadowMario.update, from reading the keys to drawing the frame
+     */
+    @Name("shadowmario.Frame")
+    @Label("Frame")
+    @Category(CATEGORY)
+    @Description("One frame of the game loop")
+    public static final class Frame extends Event {
+        @Label("Game State")
+        public String gameState;
+        @Label("Level")
+        @Description("The level being played, 0 before one is chosen")
+        public int level;
+        @Label("Simulation Steps")
+        public int simulationSteps;
+    }
+
+    /**
+     * One call to World.updateWorld
+     */
+    @Name("shadowmario.WorldUpdate")
+    @Label("World Update")
+    @Category(CATEGORY)
+    @Description("One update of the world: streaming, moving entities, collisions and removal")
+    public static final class WorldUpdate extends Event {
+        @Label("Entities")
+        public int entities;
+        @Label("Interactions")
+        public int interactions;
+        @Label("Movers")
+        public int movers;
+        @Label("Awake Patrollers")
+        public int awakePatrollers;
+        @Label("Collision Checks")
+        public int collisionChecks;
+        @Label("Fireballs")
+        public int fireballs;
+    }
+
+    /**
+     * One call to World.drawWorld
+     */
+    @Name("shadowmario.WorldDraw")
+    @Label("World Draw")
+    @Category(CATEGORY)
+    @Description("Drawing the entities of the world that overlap the window")
+    public static final class WorldDraw extends Event {
+        @Label("Drawn Entities")
+        public int drawn;
+        @Label("Culled Entities")
+        public int culled;
+    }
+
+    /**
+     * Loading a level and constructing its world
+     */
+    @Name("shadowmario.LevelLoad")
+    @Label("Level Load")
+    @Category(CATEGORY)
+    @Description("Loading a level file and building its world")
+    public static final class LevelLoad extends Event {
+        @Label("Level")
+        public int level;
+        @Label("Seed")
+        public long seed;
+        @Label("Entities")
+        @Description("The entities in the world once loaded, with the first chunks streamed in")
+        public int entities;
+    }
+
+    /**
+     * The fireballs shot during one simulation step
+     */
+    @Name("shadowmario.FireballBurst")
+    @Label("Fireball Burst")
+    @Category(CATEGORY)
+    @Description("Fireballs shot in one simulation step, committed at the end of the step")
+    public static final class FireballBurst extends Event {
+        @Label("Spawned")
+        public int spawned;
+        @Label("Allocated")
+        @Description("Spawned fireballs that could not be reused from the pool")
+        public int allocated;
+        @Label("In Flight")
+        public int inFlight;
+        @Label("Burst Time")
+        @Description("The time from the first shot to the end of the step")
+        @Timespan(Timespan.NANOSECONDS)
+        public long burstTime;
+    }
+}
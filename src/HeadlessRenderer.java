@@ -0,0 +1,25 @@
+import bagel.DrawOptions;
+
+/**
+ * Renderer that draws nothing, for running the simulation without a window such as in batch jobs and benchmarks
+ * @author Taiyo Siew-Adachi
+ */
+public class HeadlessRenderer implements Renderer {
+
+    @Override
+    public void drawSprite(Sprite sprite, double x, double y) {
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y) {
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y, DrawOptions options) {
+    }
+
+    @Override
+    public double getTextWidth(int fontSize, String text) {
+        return 0;
+    }
+}
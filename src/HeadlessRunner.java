@@ -0,0 +1,191 @@
+import bagel.DrawOptions;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs a level without a window, as fast as the CPU allows, with a simple bot that runs right, jumps and shoots.
+ * Used for batch simulation and benchmarks on machines without a display. With -parallel-check, runs the level twice
+ * from the same seed, updating on one thread then across the fork join pool, and exits with status 1 if the runs
+ * differ in score, health, steps or where anything was drawn
+ * Usage: java HeadlessRunner [-parallel-check] [level] [maxSteps] [seed] [replayFile]
+ * @author Taiyo Siew-Adachi
+ */
+public class HeadlessRunner {
+    private static final int DEFAULT_MAX_STEPS = 100_000;
+    private static final int JUMP_INTERVAL = 45;
+    private static final int SHOOT_INTERVAL = 30;
+
+    /**
+     * The entry point for a headless run
+     * @param args The level number, maximum number of simulation steps, seed and file to save the replay of the run
+     *             to, all optional. Runs with the same seed are identical, a new seed is chosen if none is given
+     * @throws IOException if the replay cannot be saved
+     */
+    public static void main(String[] args) throws IOException {
+        boolean parallelCheck = args.length > 0 && args[0].equals("-parallel-check");
+        if (parallelCheck) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        int level = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int maxSteps = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_STEPS;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : WorldRandom.newSeed();
+        GameConfig config = GameConfig.load("res/app.properties", "res/message_en.properties");
+        if (parallelCheck) {
+            World serial = World.newWorld(level, config, seed);
+            World parallel = World.newWorld(level, config, seed);
+            boolean matched = checkParallel("level " + level + " (seed " + seed + ")", serial, parallel, maxSteps,
+                    config);
+            serial.dispose();
+            parallel.dispose();
+            if (!matched) {
+                System.exit(1);
+            }
+            return;
+        }
+        /* Sprites are batched as in the game, against a backend that only counts the draw calls */
+        CountingBatchBackend backend = new CountingBatchBackend();
+        SpriteBatchRenderer renderer = new SpriteBatchRenderer(TextureAtlas.load("res"), backend,
+                new HeadlessRenderer());
+        ScreenMessages screenMsg = new ScreenMessages(renderer, config);
+
+        World world = World.newWorld(level, config, seed);
+        Replay replay = new Replay(level, seed);
+        Player player = world.getPlayer();
+        long start = System.nanoTime();
+        int steps = play(world, maxSteps, renderer, screenMsg, replay);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String result = world.getEndFlag().getCollided() ? "WON" : player.isAlive() ? "STOPPED" : "LOST";
+        System.out.printf("level %d (seed %d): %s after %d steps, score %d, %.0f steps/s (%.0fx real time)%n",
+                level, world.getSeed(), result, steps, player.getScore(), steps / seconds,
+                steps / seconds / SimulationClock.STEPS_PER_SECOND);
+        System.out.printf("streaming: %d chunks, %d entities loaded at the end, %d retired entities swept%n",
+                world.getStreamer().getLoadedChunkCount(), world.getStreamer().getLoadedEntityCount(),
+                world.getSweptEntityCount());
+        System.out.printf("patrollers: %d in the world, %d awake at the end%n",
+                world.getPatrollerCount(), world.getAwakePatrollerCount());
+        System.out.printf("textures: %d sprites, %d hits, %d misses, %d bytes resident%n",
+                TextureCache.getSpriteCount(), TextureCache.getHits(), TextureCache.getMisses(),
+                TextureCache.getBytesResident());
+        System.out.printf("batching: %d atlas pages, %.1f draw calls and %.1f batched sprites per frame, %d draw calls "
+                        + "in the last frame%n", backend.getTextureCount(),
+                (double) backend.getDrawCalls() / Math.max(1, steps), (double) backend.getQuads() / Math.max(1, steps),
+                renderer.getLastFrameDrawCalls());
+        if (args.length > 3) {
+            replay.finish(player);
+            replay.write(Paths.get(args[3]));
+        }
+        world.dispose();
+    }
+
+    /**
+     * Runs the bot on a world until the level ends or the maximum number of steps is reached
+     * @param world The world to run
+     * @param maxSteps The maximum number of simulation steps
+     * @param renderer The renderer each step is drawn to
+     * @param screenMsg The screen messages drawn over each step
+     * @param replay The replay to record the bot's inputs to, or null to not record them
+     * @return The number of steps run
+     */
+    private static int play(World world, int maxSteps, Renderer renderer, ScreenMessages screenMsg, Replay replay) {
+        InputState inputState = new InputState();
+        Player player = world.getPlayer();
+        int steps = 0;
+        while (steps < maxSteps && player.isAlive() && !world.getEndFlag().getCollided()) {
+            int pressed = 0;
+            if (steps % JUMP_INTERVAL == 0) {
+                pressed |= InputState.UP;
+            }
+            if (steps % SHOOT_INTERVAL == 0) {
+                pressed |= InputState.SHOOT;
+            }
+            inputState.latch(InputState.RIGHT, pressed);
+            if (replay != null) {
+                replay.record(inputState);
+            }
+            world.step(inputState);
+            inputState.clearPresses();
+            /* Still go through the drawing code, so it is exercised without a window */
+            world.drawWorld(renderer, 1.0);
+            screenMsg.inPlayScreen(player, world.getEnemyBoss());
+            renderer.endFrame();
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * Runs the bot on two worlds built the same way, one updated on the calling thread only and the other across the
+     * fork join pool, and reports whether they ended the same. The pool must have a parallelism above 1 (set with
+     * java.util.concurrent.ForkJoinPool.common.parallelism) and the level enough entities for the update to split
+     * @param name The name of the run to report it by
+     * @param serial The world to update on the calling thread
+     * @param parallel The world to update in parallel, built from the same level and seed
+     * @param maxSteps The maximum number of simulation steps
+     * @param config The configuration of the game
+     * @return true if both runs ended with the same score, health and number of steps, and drew everything in the
+     *         same place every step, false otherwise
+     */
+    public static boolean checkParallel(String name, World serial, World parallel, int maxSteps, GameConfig config) {
+        serial.setParallelUpdate(false);
+        parallel.setParallelUpdate(true);
+        HashingRenderer serialDraws = new HashingRenderer();
+        HashingRenderer parallelDraws = new HashingRenderer();
+        int serialSteps = play(serial, maxSteps, serialDraws, new ScreenMessages(serialDraws, config), null);
+        int parallelSteps = play(parallel, maxSteps, parallelDraws, new ScreenMessages(parallelDraws, config), null);
+        Player serialPlayer = serial.getPlayer();
+        Player parallelPlayer = parallel.getPlayer();
+        boolean matched = serialSteps == parallelSteps && serialPlayer.getScore() == parallelPlayer.getScore() &&
+                serialPlayer.getHealth() == parallelPlayer.getHealth() &&
+                serialDraws.getHash() == parallelDraws.getHash();
+        System.out.printf("%s: serial %d steps, score %d, health %.2f, draw hash %016x; parallel %d steps, score %d, " +
+                        "health %.2f, draw hash %016x (pool parallelism %d): %s%n", name, serialSteps,
+                serialPlayer.getScore(), serialPlayer.getHealth(), serialDraws.getHash(), parallelSteps,
+                parallelPlayer.getScore(), parallelPlayer.getHealth(), parallelDraws.getHash(),
+                ForkJoinPool.getCommonPoolParallelism(), matched ? "same" : "DIFFERENT");
+        return matched;
+    }
+
+    /**
+     * Renderer that draws nothing, but hashes the image and position of every sprite and the text and position of
+     * every message drawn to it, in order, so two runs can be checked for drawing exactly the same frames
+     */
+    private static final class HashingRenderer implements Renderer {
+        private long hash = 1;
+
+        @Override
+        public void drawSprite(Sprite sprite, double x, double y) {
+            add(sprite.getFile().hashCode());
+            add(Double.doubleToLongBits(x));
+            add(Double.doubleToLongBits(y));
+        }
+
+        @Override
+        public void drawText(int fontSize, String text, double x, double y) {
+            add(fontSize);
+            add(text.hashCode());
+            add(Double.doubleToLongBits(x));
+            add(Double.doubleToLongBits(y));
+        }
+
+        @Override
+        public void drawText(int fontSize, String text, double x, double y, DrawOptions options) {
+            drawText(fontSize, text, x, y);
+        }
+
+        @Override
+        public double getTextWidth(int fontSize, String text) {
+            return 0;
+        }
+
+        private void add(long value) {
+            hash = hash * 31 + value;
+        }
+
+        private long getHash() {
+            return hash;
+        }
+    }
+}
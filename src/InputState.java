@@ -0,0 +1,69 @@
+/**
+ * The state of the keys used by the simulation, stored as a bitmask so the simulation does not depend on Bagel's
+ * input. Presses are latched across rendered frames until a simulation step has seen them, so a press is not lost on
+ * a frame that runs no steps
+ * @author Taiyo Siew-Adachi
+ */
+public class InputState {
+    /** Bit of the left arrow key */
+    public static final int LEFT = 1;
+    /** Bit of the right arrow key */
+    public static final int RIGHT = 1 << 1;
+    /** Bit of the up arrow key */
+    public static final int UP = 1 << 2;
+    /** Bit of the S key, to shoot fireballs */
+    public static final int SHOOT = 1 << 3;
+    private int held = 0;
+    private int pressed = 0;
+
+    /**
+     * Sets the keys held down for the current frame, adding any new presses to the presses not yet seen
+     * @param held The bits of the keys held down
+     * @param pressed The bits of the keys pressed this frame
+     */
+    public void latch(int held, int pressed) {
+        this.held = held;
+        this.pressed |= pressed;
+    }
+
+    /**
+     * Checks if a key is held down or was pressed since the last simulation step
+     * @param key The bit of the key
+     * @return true if the key is active, false otherwise
+     */
+    public boolean isActive(int key) {
+        return ((held | pressed) & key) != 0;
+    }
+
+    /**
+     * Checks if a key was pressed since the last simulation step
+     * @param key The bit of the key
+     * @return true if the key was pressed, false otherwise
+     */
+    public boolean wasPressed(int key) {
+        return (pressed & key) != 0;
+    }
+
+    /**
+     * Retrieves the keys held down for the current frame
+     * @return The bits of the keys held down
+     */
+    public int getHeld() {
+        return held;
+    }
+
+    /**
+     * Retrieves the keys pressed since the last simulation step
+     * @return The bits of the keys pressed
+     */
+    public int getPressed() {
+        return pressed;
+    }
+
+    /**
+     * Forgets the latched presses, called once a simulation step has seen them
+     */
+    public void clearPresses() {
+        pressed = 0;
+    }
+}
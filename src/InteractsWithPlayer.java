@@ -1,5 +1,3 @@
-import bagel.util.Point;
-
 /**
  * InteractsWithPlayer interface for all the entities that can collide with player with a simple radius check
  * @author Taiyo Siew-Adachi
@@ -12,10 +10,37 @@ public interface InteractsWithPlayer {
     double getRadius();
 
     /**
-     * Retrieves the position of the entity that interacts with player for collision detection
-     * @return The position of the entity
+     * Retrieves the x co-ord of the entity in the world, used to place it in the broadphase grid
+     * @return The x co-ord of the entity
+     */
+    double getX();
+
+    /**
+     * Retrieves the horizontal speed of the entity, its parallax factor when the view scrolls
+     * @return The horizontal speed of the entity
+     */
+    double getXSpeed();
+
+    /**
+     * Retrieves the x co-ord of the entity on screen, after the camera's scroll offset is applied
+     * @return The x co-ord of the entity on screen
+     */
+    double getScreenX();
+
+    /**
+     * Retrieves the y co-ord of the entity, used to place it in the broadphase grid
+     * @return The y co-ord of the entity
      */
-    Point getPosition();
+    double getY();
+
+    /**
+     * Retrieves the furthest distance from its position that the entity can collide with the player at, excluding
+     * the player's own radius. Used by the broadphase to decide which cells around the player to check
+     * @return The reach of the entity
+     */
+    default double getInteractionReach() {
+        return getRadius();
+    }
 
     /**
      * Checks collision with the player using the radius of player and the other entity's radius
@@ -23,8 +48,17 @@ public interface InteractsWithPlayer {
      * @return true if there is a collision, false otherwise
      */
     default boolean checkCollisionWithPlayer(Player player) {
-        double range = player.getRadius() + this.getRadius();
-        return (this.getPosition().distanceTo(player.getPosition()) <= range);
+        return Collision.circlesOverlap(getScreenX(), getY(), getRadius(),
+                player.getScreenX(), player.getY(), player.getRadius());
+    }
+
+    /**
+     * Checks if the entity has no further interaction with the player, such as a coin that has been collected, so it
+     * no longer needs to be checked for collisions
+     * @return false by default, as most entities keep interacting with the player
+     */
+    default boolean isInteractionSpent() {
+        return false;
     }
 
     /**
@@ -0,0 +1,109 @@
+import java.util.Arrays;
+
+/**
+ * Fixed size histogram of durations in nanoseconds, for percentiles of how long a stage of the game takes. Each power
+ * of two range is split into 16 buckets, so recording is a few arithmetic operations with no allocation, and a
+ * percentile is accurate to within about 6% of its value. The largest value recorded is kept exactly
+ * @author Taiyo Siew-Adachi
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /* Values below SUB_BUCKETS get a bucket each, then each power of two from there gets SUB_BUCKETS buckets */
+    private final long[] counts = new long[(Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    /**
+     * Adds a duration to the histogram
+     * @param nanos The duration in nanoseconds, negative durations are counted as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucketOf(value)]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Forgets every duration recorded
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * Retrieves the number of durations recorded
+     * @return The number of durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the mean of the durations recorded
+     * @return The mean duration in nanoseconds, 0 if none were recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : total / (double) count;
+    }
+
+    /**
+     * Retrieves the longest duration recorded
+     * @return The longest duration in nanoseconds, 0 if none were recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Finds the duration that the given percentage of recorded durations are at or below
+     * @param percentile The percentage, from 0 to 100
+     * @return The top of the bucket holding that duration in nanoseconds, no more than the longest duration
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, highestValueIn(bucket));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Finds the bucket of a value: the value itself if it is small, otherwise its power of two followed by the next
+     * SUB_BUCKET_BITS bits after its leading one
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Finds the largest value that falls in a bucket
+     */
+    private static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
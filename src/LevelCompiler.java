@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Compiles level csv files into a binary format that can be memory mapped and read in bulk. A compiled level holds
+ * a header with the CRC32 checksum of the csv it was compiled from, a table of the entity type names used, a column
+ * with the index of each entity's type in the table, then a column of x co-ords and a column of y co-ords.
+ * Compiled levels sit next to their csv file with the extension .lvl, and are built by the Maven build.
+ * Usage: java LevelCompiler [csv files...]
+ * @author Taiyo Siew-Adachi
+ */
+public class LevelCompiler {
+    /** The characters SMLV, at the start of every compiled level */
+    public static final int MAGIC = 0x534D4C56;
+    public static final int VERSION = 1;
+    private static final String CSV_EXTENSION = ".csv";
+    private static final String COMPILED_EXTENSION = ".lvl";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    /**
+     * Compiles each level csv file given
+     * @param args The paths to the csv files
+     * @throws IOException if a level cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        for (String csvFile: args) {
+            LevelLayout layout = compile(csvFile);
+            System.out.printf("compiled %s: %d entities -> %s%n", csvFile, layout.size(), compiledPath(csvFile));
+        }
+    }
+
+    /**
+     * Compiles a level csv file into the compiled level next to it
+     * @param csvFile The path to the csv file
+     * @return The layout of the level that was compiled
+     * @throws IOException if the level cannot be read or written
+     */
+    public static LevelLayout compile(String csvFile) throws IOException {
+        long checksum = checksum(Paths.get(csvFile));
+        LevelLayout layout = LevelParser.parse(csvFile);
+        write(layout, checksum, compiledPath(csvFile));
+        return layout;
+    }
+
+    /**
+     * Writes a layout as a compiled level. It is written to a temporary file first and moved into place once
+     * complete, so a build stopped part way never leaves a compiled level that looks valid
+     * @param layout The layout of the level
+     * @param checksum The CRC32 checksum of the csv the layout was read from
+     * @param file The path to write the compiled level to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(LevelLayout layout, long checksum, String file) throws IOException {
+        EntityType[] types = EntityType.values();
+        int tableBytes = Integer.BYTES;
+        for (EntityType type: types) {
+            tableBytes += Short.BYTES + type.name().length();
+        }
+        int size = layout.size();
+        long length = dataOffset(tableBytes, size) + 2L * Double.BYTES * size;
+        Path target = Paths.get(file);
+        Path temporary = Paths.get(file + TEMPORARY_EXTENSION);
+        /* Written through a buffer rather than a mapping, as a mapped file cannot be moved on some systems */
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(checksum).putInt(size);
+            buffer.putInt(types.length);
+            for (EntityType type: types) {
+                byte[] name = type.name().getBytes(StandardCharsets.US_ASCII);
+                buffer.putShort((short) name.length).put(name);
+            }
+            for (int i = 0; i < size; i++) {
+                buffer.put((byte) layout.getType(i).ordinal());
+            }
+            buffer.position((int) dataOffset(tableBytes, size));
+            for (int i = 0; i < size; i++) {
+                buffer.putDouble(layout.getX(i));
+            }
+            for (int i = 0; i < size; i++) {
+                buffer.putDouble(layout.getY(i));
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Finds the path of the compiled level for a level csv file
+     * @param csvFile The path to the csv file
+     * @return The path to the compiled level
+     */
+    public static String compiledPath(String csvFile) {
+        if (csvFile.endsWith(CSV_EXTENSION)) {
+            return csvFile.substring(0, csvFile.length() - CSV_EXTENSION.length()) + COMPILED_EXTENSION;
+        }
+        return csvFile + COMPILED_EXTENSION;
+    }
+
+    /**
+     * Calculates the CRC32 checksum of a file, to tell if a compiled level is out of date with its csv
+     * @param file The path to the file
+     * @return The checksum of the file's contents
+     * @throws IOException if the file cannot be read
+     */
+    public static long checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Integer.MAX_VALUE, size - position));
+                crc.update(buffer);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Finds where the co-ord columns start, after the header, type table and type column, aligned to 8 bytes
+     */
+    static long dataOffset(int tableBytes, int size) {
+        long headerBytes = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+        long offset = headerBytes + tableBytes + size;
+        return (offset + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The entities placed in a level, in the order they appear in the level file. Stored as columns of types and
+ * co-ords rather than an object per entity, so large levels can be read and written in bulk
+ * @author Taiyo Siew-Adachi
+ */
+public class LevelLayout {
+    private static final int INITIAL_CAPACITY = 64;
+    private EntityType[] types;
+    private double[] xs;
+    private double[] ys;
+    private int size = 0;
+
+    /**
+     * Constructs an empty layout
+     */
+    public LevelLayout() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty layout with room for the given number of entities
+     * @param capacity The number of entities expected in the level
+     */
+    public LevelLayout(int capacity) {
+        types = new EntityType[Math.max(capacity, 1)];
+        xs = new double[types.length];
+        ys = new double[types.length];
+    }
+
+    /**
+     * Constructs a layout from columns that have already been read, taking ownership of the arrays
+     * @param types The type of each entity
+     * @param xs The x co-ord of each entity
+     * @param ys The y co-ord of each entity
+     */
+    LevelLayout(EntityType[] types, double[] xs, double[] ys) {
+        this.types = types;
+        this.xs = xs;
+        this.ys = ys;
+        size = types.length;
+    }
+
+    /**
+     * Joins layouts end to end, keeping the order of the entities in each
+     * @param parts The layouts to join, in order
+     * @return A layout with the entities of every part
+     */
+    public static LevelLayout concat(List<LevelLayout> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int total = 0;
+        for (LevelLayout part: parts) {
+            total += part.size;
+        }
+        LevelLayout joined = new LevelLayout(total);
+        for (LevelLayout part: parts) {
+            System.arraycopy(part.types, 0, joined.types, joined.size, part.size);
+            System.arraycopy(part.xs, 0, joined.xs, joined.size, part.size);
+            System.arraycopy(part.ys, 0, joined.ys, joined.size, part.size);
+            joined.size += part.size;
+        }
+        return joined;
+    }
+
+    /**
+     * Adds an entity to the end of the layout
+     * @param type The type of the entity
+     * @param x The x co-ord of the entity
+     * @param y The y co-ord of the entity
+     */
+    public void add(EntityType type, double x, double y) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        types[size] = type;
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    /**
+     * Retrieves the number of entities in the layout
+     * @return The number of entities
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the type of an entity
+     * @param index The position of the entity in the level file
+     * @return The type of the entity
+     */
+    public EntityType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Retrieves the x co-ord of an entity
+     * @param index The position of the entity in the level file
+     * @return The x co-ord of the entity
+     */
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Retrieves the y co-ord of an entity
+     * @param index The position of the entity in the level file
+     * @return The y co-ord of the entity
+     */
+    public double getY(int index) {
+        return ys[index];
+    }
+}
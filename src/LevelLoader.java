@@ -0,0 +1,121 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads the layout of a level, from its compiled level if there is one that is up to date with the csv, otherwise
+ * from the csv itself. Compiled levels are memory mapped and their co-ord columns copied in bulk
+ * @author Taiyo Siew-Adachi
+ */
+public class LevelLoader {
+
+    /**
+     * Loads the layout of a level
+     * @param csvFile The path to the level csv file
+     * @return The layout of the level
+     * @throws UncheckedIOException if neither the compiled level nor the csv can be read
+     * @throws IllegalArgumentException if the csv is malformed
+     */
+    public static LevelLayout load(String csvFile) {
+        try {
+            String compiledFile = LevelCompiler.compiledPath(csvFile);
+            if (new File(compiledFile).isFile()) {
+                Path csvPath = Paths.get(csvFile);
+                /* Without the csv, the compiled level is all there is to go on */
+                long checksum = csvPath.toFile().isFile() ? LevelCompiler.checksum(csvPath) : -1;
+                LevelLayout layout = readCompiled(compiledFile, checksum);
+                if (layout != null) {
+                    return layout;
+                }
+            }
+            return LevelParser.parse(csvFile);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not load level " + csvFile, e);
+        }
+    }
+
+    /**
+     * Reads a compiled level
+     * @param file The path to the compiled level
+     * @param expectedChecksum The checksum of the csv the level should have been compiled from, or -1 to accept any
+     * @return The layout of the level, or null if the file is not a compiled level of this version, is cut short or
+     *         malformed, or is out of date
+     * @throws IOException if the file cannot be read
+     */
+    public static LevelLayout readCompiled(String file, long expectedChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            /* The header and the length of the type table */
+            if (buffer.remaining() < 4 * Integer.BYTES + Long.BYTES || buffer.getInt() != LevelCompiler.MAGIC ||
+                    buffer.getInt() != LevelCompiler.VERSION) {
+                return null;
+            }
+            long checksum = buffer.getLong();
+            if (expectedChecksum != -1 && checksum != expectedChecksum) {
+                return null;
+            }
+            int size = buffer.getInt();
+            EntityType[] typeTable = readTypeTable(buffer);
+            if (size < 0 || typeTable == null) {
+                return null;
+            }
+            int tableBytes = buffer.position() - (2 * Integer.BYTES + Long.BYTES + Integer.BYTES);
+            if (channel.size() != LevelCompiler.dataOffset(tableBytes, size) + 2L * Double.BYTES * size) {
+                return null; // cut short, or not written by this version
+            }
+            EntityType[] types = new EntityType[size];
+            for (int i = 0; i < size; i++) {
+                int type = buffer.get() & 0xFF;
+                if (type >= typeTable.length) {
+                    return null;
+                }
+                types[i] = typeTable[type];
+            }
+
+            double[] xs = new double[size];
+            double[] ys = new double[size];
+            buffer.position((int) LevelCompiler.dataOffset(tableBytes, size));
+            DoubleBuffer coords = buffer.asDoubleBuffer();
+            coords.get(xs);
+            coords.get(ys);
+            return new LevelLayout(types, xs, ys);
+        }
+    }
+
+    /**
+     * Reads the table of type names at the start of a compiled level, matching each to its entity type
+     * @return The entity types, or null if the table is cut short or names a type this version does not have
+     */
+    private static EntityType[] readTypeTable(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() / Short.BYTES) {
+            return null;
+        }
+        EntityType[] typeTable = new EntityType[length];
+        for (int i = 0; i < typeTable.length; i++) {
+            if (buffer.remaining() < Short.BYTES) {
+                return null;
+            }
+            int nameLength = buffer.getShort();
+            if (nameLength < 0 || nameLength > buffer.remaining()) {
+                return null;
+            }
+            byte[] name = new byte[nameLength];
+            buffer.get(name);
+            typeTable[i] = EntityType.fromName(new String(name, StandardCharsets.US_ASCII));
+            if (typeTable[i] == null) {
+                return null;
+            }
+        }
+        return typeTable;
+    }
+}
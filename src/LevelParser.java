@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reads level csv files, one entity per line in the form TYPE,x,y, shared by the worlds of every level.
+ * The file is memory mapped and split into byte ranges on line boundaries, which are parsed in parallel straight
+ * from the bytes, without making a String per line or field, then joined back together in the order of the file
+ * @author Taiyo Siew-Adachi
+ */
+public class LevelParser {
+    /* Files smaller than this are parsed as a single range, as splitting them costs more than it saves */
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final EntityType[] TYPES = EntityType.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+    /* Powers of ten that are exact as doubles, so a mantissa of up to 53 bits divided by one is correctly rounded */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Reads the entities of a level csv file in the order they are written
+     * @param filename The path to the csv file
+     * @return The layout of the level
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a known entity type followed by two numbers, giving the
+     * line number of the first such line
+     */
+    public static LevelLayout parse(String filename) throws IOException {
+        MappedByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(filename + ": level files over 2GB are not supported");
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = bytes.capacity();
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        int chunkBytes = Math.max(MIN_CHUNK_BYTES, size / Math.max(1, threads * CHUNKS_PER_THREAD) + 1);
+
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (long start = 0; start < size; start += chunkBytes) {
+            tasks.add(new ChunkTask(bytes, (int) start, (int) Math.min(size, start + chunkBytes)));
+        }
+        if (tasks.size() == 1) {
+            tasks.get(0).invoke();
+        }
+        else {
+            ForkJoinTask.invokeAll(tasks);
+        }
+
+        /* Join the ranges in file order, reporting the first bad line with its line number in the whole file */
+        List<LevelLayout> layouts = new ArrayList<>(tasks.size());
+        int linesBefore = 0;
+        for (ChunkTask task: tasks) {
+            Chunk chunk = task.join();
+            if (chunk.error != null) {
+                throw new IllegalArgumentException(filename + ":" + (linesBefore + chunk.errorLine) + ": " +
+                        chunk.error);
+            }
+            layouts.add(chunk.layout);
+            linesBefore += chunk.lineCount;
+        }
+        return LevelLayout.concat(layouts);
+    }
+
+    /**
+     * The entities parsed from one range of the file, with the number of lines that started in the range, or the
+     * first error found in it
+     */
+    private static final class Chunk {
+        private final LevelLayout layout = new LevelLayout();
+        private int lineCount = 0;
+        private String error;
+        private int errorLine;
+    }
+
+    /**
+     * Parses the lines that start within one byte range of the file. A range skips the partial line it starts in,
+     * which belongs to the range before, and finishes the line it ends in
+     */
+    private static final class ChunkTask extends RecursiveTask<Chunk> {
+        private final MappedByteBuffer bytes;
+        private final int start;
+        private final int end;
+
+        private ChunkTask(MappedByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Chunk compute() {
+            Chunk chunk = new Chunk();
+            int size = bytes.capacity();
+            int lineStart = start;
+            if (start > 0 && bytes.get(start - 1) != '\n') {
+                lineStart = nextLineStart(start);
+            }
+            while (lineStart < end && lineStart < size) {
+                int lineEnd = lineStart;
+                while (lineEnd < size && bytes.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                chunk.lineCount++;
+                String error = parseLine(lineStart, lineEnd, chunk.layout);
+                if (error != null) {
+                    chunk.error = error;
+                    chunk.errorLine = chunk.lineCount;
+                    return chunk;
+                }
+                lineStart = lineEnd + 1;
+            }
+            return chunk;
+        }
+
+        private int nextLineStart(int from) {
+            int i = from;
+            while (i < bytes.capacity() && bytes.get(i) != '\n') {
+                i++;
+            }
+            return i + 1;
+        }
+
+        /**
+         * Parses a single line and adds its entity to the layout
+         * @return null if the line was parsed or is blank, otherwise a description of what is wrong with it
+         */
+        private String parseLine(int from, int to, LevelLayout layout) {
+            from = skipWhitespace(from, to);
+            to = trimWhitespace(from, to);
+            if (from == to) {
+                return null;
+            }
+            int firstComma = indexOf(',', from, to);
+            int secondComma = firstComma < 0 ? -1 : indexOf(',', firstComma + 1, to);
+            if (secondComma < 0) {
+                return "expected TYPE,x,y but found \"" + text(from, to) + "\"";
+            }
+            EntityType type = matchType(from, trimWhitespace(from, firstComma));
+            if (type == null) {
+                return "unknown entity type \"" + text(from, firstComma) + "\"";
+            }
+            double x = parseDouble(firstComma + 1, secondComma);
+            double y = parseDouble(secondComma + 1, to);
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                return "invalid co-ords in \"" + text(from, to) + "\"";
+            }
+            layout.add(type, x, y);
+            return null;
+        }
+
+        private EntityType matchType(int from, int to) {
+            for (int i = 0; i < TYPES.length; i++) {
+                byte[] name = TYPE_NAMES[i];
+                if (name.length == to - from && matches(name, from)) {
+                    return TYPES[i];
+                }
+            }
+            return null;
+        }
+
+        private boolean matches(byte[] name, int from) {
+            for (int j = 0; j < name.length; j++) {
+                if (bytes.get(from + j) != name[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Parses a decimal number, exactly as Double.parseDouble would. Numbers with up to 15 or so significant
+         * digits, which is all that level files use, are converted straight from the bytes
+         * @return The number, or NaN if the field is not a number
+         */
+        private double parseDouble(int from, int to) {
+            from = skipWhitespace(from, to);
+            to = trimWhitespace(from, to);
+            int i = from;
+            boolean negative = false;
+            if (i < to && (bytes.get(i) == '-' || bytes.get(i) == '+')) {
+                negative = bytes.get(i) == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = 0;
+            boolean inFraction = false;
+            for (; i < to; i++) {
+                byte b = bytes.get(i);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (inFraction) {
+                        fractionDigits++;
+                    }
+                    if (mantissa >= MAX_EXACT_MANTISSA || fractionDigits >= EXACT_POWERS_OF_TEN.length) {
+                        return parseSlowly(from, to);
+                    }
+                }
+                else if (b == '.' && !inFraction) {
+                    inFraction = true;
+                }
+                else {
+                    return parseSlowly(from, to); // exponents, hex and special values
+                }
+            }
+            if (digits == 0) {
+                return Double.NaN;
+            }
+            double value = mantissa / EXACT_POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        private double parseSlowly(int from, int to) {
+            try {
+                return Double.parseDouble(text(from, to));
+            }
+            catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        private int indexOf(char c, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (bytes.get(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int skipWhitespace(int from, int to) {
+            while (from < to && bytes.get(from) <= ' ') {
+                from++;
+            }
+            return from;
+        }
+
+        private int trimWhitespace(int from, int to) {
+            while (to > from && bytes.get(to - 1) <= ' ') {
+                to--;
+            }
+            return to;
+        }
+
+        private String text(int from, int to) {
+            byte[] text = new byte[to - from];
+            for (int i = from; i < to; i++) {
+                text[i - from] = bytes.get(i);
+            }
+            return new String(text, StandardCharsets.US_ASCII);
+        }
+    }
+}
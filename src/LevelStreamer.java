@@ -0,0 +1,330 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams the entities of a level in and out of its world by scroll position. The streamed entities of the level
+ * are grouped into chunks by their x co-ord, and only the chunks near the window are built and kept in the world,
+ * so the memory and update cost of a world depends on the part of the level around the player rather than its
+ * length. Chunks coming up ahead of the player can be built on a background thread, then added to the world at the
+ * start of a simulation step. Entities the player has used up, such as collected coins, stay used up if their
+ * chunk is streamed out and back in
+ * @author Taiyo Siew-Adachi
+ */
+public class LevelStreamer {
+    /** The width of a chunk in the world space of its layer */
+    public static final double CHUNK_WIDTH = 1024;
+    /* Distance beyond the window that chunks must be in the world by, covering culling and patrolling entities */
+    private static final double REQUIRED_MARGIN = 512;
+    /* Distance beyond the window that chunks start being built at, ahead of when they are needed */
+    private static final double PREFETCH_MARGIN = 1536;
+    /* Distance beyond the window that chunks are streamed out at, further than prefetching to avoid thrashing */
+    private static final double RELEASE_MARGIN = 2560;
+    private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "level-streamer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final World world;
+    private final LevelLayout layout;
+    private final double windowWidth;
+    private final ArrayList<StreamLayer> layers = new ArrayList<>();
+    /* Entities, by their index in the layout, that were used up when their chunk was streamed out */
+    private final BitSet consumed = new BitSet();
+    private boolean buildInBackground = false;
+    private int loadedChunkCount = 0;
+    private int loadedEntityCount = 0;
+
+    /**
+     * Splits the streamed entities of a level into chunks, none of which are built yet
+     * @param world The world the entities are streamed into
+     * @param layout The layout of the level
+     * @param config The configuration of the game, for the speed each type of entity scrolls at
+     */
+    public LevelStreamer(World world, LevelLayout layout, GameConfig config) {
+        this.world = world;
+        this.layout = layout;
+        windowWidth = config.getWindowWidth();
+        /* Find the layer and chunk of every streamed entity, then group the entities by chunk with a counting sort */
+        int size = layout.size();
+        int[] layerOf = new int[size];
+        int[] chunkOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            EntityType type = layout.getType(i);
+            layerOf[i] = -1;
+            if (type.isStreamed()) {
+                layerOf[i] = layerIndex(config.getEntity(type).getSpeed());
+                chunkOf[i] = chunkOf(layout.getX(i));
+                StreamLayer layer = layers.get(layerOf[i]);
+                layer.minChunk = Math.min(layer.minChunk, chunkOf[i]);
+                layer.maxChunk = Math.max(layer.maxChunk, chunkOf[i]);
+            }
+        }
+        for (StreamLayer layer: layers) {
+            layer.counts = new int[layer.maxChunk - layer.minChunk + 1];
+        }
+        for (int i = 0; i < size; i++) {
+            if (layerOf[i] >= 0) {
+                StreamLayer layer = layers.get(layerOf[i]);
+                layer.counts[chunkOf[i] - layer.minChunk]++;
+            }
+        }
+        for (StreamLayer layer: layers) {
+            layer.chunks = new Chunk[layer.counts.length];
+            for (int c = 0; c < layer.counts.length; c++) {
+                if (layer.counts[c] > 0) {
+                    layer.chunks[c] = new Chunk(layer.minChunk + c, layer.counts[c]);
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (layerOf[i] >= 0) {
+                StreamLayer layer = layers.get(layerOf[i]);
+                Chunk chunk = layer.chunks[chunkOf[i] - layer.minChunk];
+                chunk.indices[chunk.count++] = i; // in layout order, as entities are visited in order
+            }
+        }
+        for (StreamLayer layer: layers) {
+            layer.counts = null;
+        }
+    }
+
+    /**
+     * Finds the index of the layer of entities scrolling at the given speed, creating it if it does not exist yet
+     */
+    private int layerIndex(double xSpeed) {
+        for (int i = 0; i < layers.size(); i++) {
+            if (layers.get(i).xSpeed == xSpeed) {
+                return i;
+            }
+        }
+        layers.add(new StreamLayer(xSpeed));
+        return layers.size() - 1;
+    }
+
+    /**
+     * Sets whether chunks ahead of the player are built on a background thread. When off, chunks are built on the
+     * simulation thread as they are needed, so runs are repeatable, such as for headless runs and benchmarks
+     * @param buildInBackground true to build chunks in the background, false to build them when needed
+     */
+    public void setBuildInBackground(boolean buildInBackground) {
+        this.buildInBackground = buildInBackground;
+    }
+
+    /**
+     * Brings the chunks near the window into the world and releases the chunks far from it. Chunks that must be on
+     * screen or in reach of the player are built now if they are not built yet
+     * @param camera The camera the world is viewed through
+     */
+    public void update(Camera camera) {
+        for (int l = 0; l < layers.size(); l++) {
+            StreamLayer layer = layers.get(l);
+            int requiredMin = chunkOf(camera.toWorldX(-REQUIRED_MARGIN, layer.xSpeed));
+            int requiredMax = chunkOf(camera.toWorldX(windowWidth + REQUIRED_MARGIN, layer.xSpeed));
+            int prefetchMin = chunkOf(camera.toWorldX(-PREFETCH_MARGIN, layer.xSpeed));
+            int prefetchMax = chunkOf(camera.toWorldX(windowWidth + PREFETCH_MARGIN, layer.xSpeed));
+            int releaseMin = chunkOf(camera.toWorldX(-RELEASE_MARGIN, layer.xSpeed));
+            int releaseMax = chunkOf(camera.toWorldX(windowWidth + RELEASE_MARGIN, layer.xSpeed));
+
+            for (int i = layer.active.size() - 1; i >= 0; i--) {
+                Chunk chunk = layer.active.get(i);
+                if (chunk.index < releaseMin || chunk.index > releaseMax) {
+                    release(chunk);
+                    layer.active.remove(i);
+                }
+            }
+            for (int index = Math.max(prefetchMin, layer.minChunk); index <= Math.min(prefetchMax, layer.maxChunk);
+                 index++) {
+                Chunk chunk = layer.chunks[index - layer.minChunk];
+                if (chunk == null) {
+                    continue;
+                }
+                boolean required = index >= requiredMin && index <= requiredMax;
+                if (chunk.entities == null && chunk.pending == null) {
+                    if (buildInBackground && !required) {
+                        chunk.pending = BUILDER.submit(() -> build(chunk));
+                    }
+                    else {
+                        add(chunk, build(chunk));
+                    }
+                    layer.active.add(chunk);
+                }
+                if (chunk.pending != null && (required || chunk.pending.isDone())) {
+                    add(chunk, await(chunk));
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases every chunk in the world and cancels any being built, when the world is discarded
+     */
+    public void dispose() {
+        for (StreamLayer layer: layers) {
+            for (Chunk chunk: layer.active) {
+                release(chunk);
+            }
+            layer.active.clear();
+        }
+    }
+
+    /**
+     * Retrieves the number of chunks currently in the world
+     * @return The number of chunks streamed in
+     */
+    public int getLoadedChunkCount() {
+        return loadedChunkCount;
+    }
+
+    /**
+     * Retrieves the number of streamed entities currently in the world
+     * @return The number of entities streamed in
+     */
+    public int getLoadedEntityCount() {
+        return loadedEntityCount;
+    }
+
+    /**
+     * Constructs the entities of a chunk, without adding them to the world, so it can run on the background thread.
+     * Entities that were used up are put back in that state, or left out if they have nothing left to do
+     */
+    private Entity[] build(Chunk chunk) {
+        Entity[] entities = new Entity[chunk.indices.length];
+        for (int i = 0; i < entities.length; i++) {
+            int index = chunk.indices[i];
+            Entity entity = world.createStreamedEntity(layout.getType(index), layout.getX(index), layout.getY(index),
+                    index);
+            if (entity != null && consumedBefore(index) && !entity.restoreConsumed()) {
+                entity.releaseSprites();
+                entity = null;
+            }
+            entities[i] = entity;
+        }
+        return entities;
+    }
+
+    private synchronized boolean consumedBefore(int index) {
+        return consumed.get(index);
+    }
+
+    private synchronized void markConsumed(int index) {
+        consumed.set(index);
+    }
+
+    /**
+     * Waits for a chunk being built in the background to finish
+     */
+    private static Entity[] await(Chunk chunk) {
+        try {
+            return chunk.pending.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while streaming in a level chunk", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Could not build a level chunk", e.getCause());
+        }
+    }
+
+    /**
+     * Adds the built entities of a chunk to the world
+     */
+    private void add(Chunk chunk, Entity[] entities) {
+        chunk.pending = null;
+        chunk.entities = entities;
+        for (int i = 0; i < entities.length; i++) {
+            if (entities[i] != null) {
+                world.addStreamedEntity(entities[i], layout.getType(chunk.indices[i]), chunk.indices[i]);
+                loadedEntityCount++;
+            }
+        }
+        loadedChunkCount++;
+    }
+
+    /**
+     * Removes the entities of a chunk from the world and releases their sprites, remembering which were used up.
+     * A chunk still being built is cancelled, or released once the build has finished
+     */
+    private void release(Chunk chunk) {
+        if (chunk.pending != null) {
+            Future<Entity[]> pending = chunk.pending;
+            chunk.pending = null;
+            if (!pending.cancel(false)) {
+                try {
+                    for (Entity entity: pending.get()) {
+                        if (entity != null) {
+                            entity.releaseSprites();
+                        }
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException | CancellationException ignored) {
+                }
+            }
+            return;
+        }
+        if (chunk.entities == null) {
+            return;
+        }
+        for (int i = 0; i < chunk.entities.length; i++) {
+            Entity entity = chunk.entities[i];
+            if (entity == null) {
+                continue;
+            }
+            if (entity.isConsumed()) {
+                markConsumed(chunk.indices[i]);
+            }
+            world.removeStreamedEntity(entity);
+            entity.releaseSprites();
+            loadedEntityCount--;
+        }
+        chunk.entities = null;
+        loadedChunkCount--;
+    }
+
+    private static int chunkOf(double x) {
+        return (int) Math.floor(x / CHUNK_WIDTH);
+    }
+
+    /**
+     * The chunks of the entities that scroll at the same speed, and so share world space
+     */
+    private static final class StreamLayer {
+        private final double xSpeed;
+        /* Chunks from the first to the last one with entities in it, null where a chunk has none */
+        private Chunk[] chunks;
+        private int[] counts;
+        /* Chunks that are in the world or being built */
+        private final ArrayList<Chunk> active = new ArrayList<>();
+        private int minChunk = Integer.MAX_VALUE;
+        private int maxChunk = Integer.MIN_VALUE;
+
+        private StreamLayer(double xSpeed) {
+            this.xSpeed = xSpeed;
+        }
+    }
+
+    /**
+     * The streamed entities in one x range of a layer
+     */
+    private static final class Chunk {
+        private final int index;
+        /* Indices in the layout of the entities in the chunk, in layout order */
+        private final int[] indices;
+        private int count = 0;
+        private Entity[] entities;
+        private Future<Entity[]> pending;
+
+        private Chunk(int index, int size) {
+            this.index = index;
+            indices = new int[size];
+        }
+    }
+}
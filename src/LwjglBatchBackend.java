@@ -0,0 +1,288 @@
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Backend for the batched sprite renderer that draws with OpenGL 3.3 into the Bagel window. All quads of a batch are
+ * written to one streamed vertex buffer and drawn with a single indexed draw call. The OpenGL state Bagel relies on is
+ * read once per frame, at the first draw, and restored after each draw, so Bagel can keep drawing text and large
+ * images in between without the driver being stalled by queries on every draw. Offscreen targets are framebuffers,
+ * which Bagel draws into as well while one is bound
+ * @author Taiyo Siew-Adachi
+ */
+public class LwjglBatchBackend implements SpriteBatchBackend {
+    private static final int FLOATS_PER_VERTEX = 4;
+    private static final int INDICES_PER_QUAD = 6;
+    private static final String VERTEX_SHADER = "#version 330 core\n"
+            + "layout(location = 0) in vec2 position;\n"
+            + "layout(location = 1) in vec2 texCoord;\n"
+            + "uniform vec2 screenSize;\n"
+            + "out vec2 uv;\n"
+            + "void main() {\n"
+            + "    uv = texCoord;\n"
+            + "    gl_Position = vec4(position.x / screenSize.x * 2.0 - 1.0, 1.0 - position.y / screenSize.y * 2.0,"
+            + " 0.0, 1.0);\n"
+            + "}\n";
+    private static final String FRAGMENT_SHADER = "#version 330 core\n"
+            + "in vec2 uv;\n"
+            + "uniform sampler2D atlas;\n"
+            + "out vec4 colour;\n"
+            + "void main() {\n"
+            + "    colour = texture(atlas, uv);\n"
+            + "}\n";
+    private final int maxQuads;
+    private final int program;
+    private final int vertexArray;
+    private final int vertexBuffer;
+    private final int indexBuffer;
+    private int[] textures = new int[0];
+    /* The framebuffer of each target, and the texture it draws into */
+    private int[] framebuffers = new int[0];
+    private int[] targetTextures = new int[0];
+    private int[] targetSizes = new int[0];
+    private final int[] previousViewport = new int[4];
+    private final float[] previousClearColour = new float[4];
+    private int previousFramebuffer = 0;
+    /* The state Bagel draws with, read at the first draw of each frame and restored after every draw */
+    private boolean stateSaved = false;
+    private int savedProgram;
+    private int savedVertexArray;
+    private int savedArrayBuffer;
+    private int savedActiveTexture;
+    private int savedTexture;
+    private boolean savedBlend;
+    private int savedBlendSourceRgb;
+    private int savedBlendDestinationRgb;
+    private int savedBlendSourceAlpha;
+    private int savedBlendDestinationAlpha;
+
+    /**
+     * Constructs the backend, compiling its shaders and creating its buffers. Needs a live window
+     * @param screenWidth The width of the window in pixels
+     * @param screenHeight The height of the window in pixels
+     * @param maxQuads The most quads drawn in one draw call, at most 16384
+     */
+    public LwjglBatchBackend(int screenWidth, int screenHeight, int maxQuads) {
+        this.maxQuads = maxQuads;
+        program = glCreateProgram();
+        int vertexShader = compile(GL_VERTEX_SHADER, VERTEX_SHADER);
+        int fragmentShader = compile(GL_FRAGMENT_SHADER, FRAGMENT_SHADER);
+        glAttachShader(program, vertexShader);
+        glAttachShader(program, fragmentShader);
+        glLinkProgram(program);
+        if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+            throw new IllegalStateException("Sprite batch shader failed to link: " + glGetProgramInfoLog(program));
+        }
+        glDeleteShader(vertexShader);
+        glDeleteShader(fragmentShader);
+
+        int previousProgram = glGetInteger(GL_CURRENT_PROGRAM);
+        glUseProgram(program);
+        glUniform2f(glGetUniformLocation(program, "screenSize"), screenWidth, screenHeight);
+        glUniform1i(glGetUniformLocation(program, "atlas"), 0);
+        glUseProgram(previousProgram);
+
+        /* The corners of every quad are drawn as two triangles, so the indices never change */
+        ShortBuffer indices = BufferUtils.createShortBuffer(maxQuads * INDICES_PER_QUAD);
+        for (int quad = 0; quad < maxQuads; quad++) {
+            int corner = quad * 4;
+            indices.put((short) corner).put((short) (corner + 1)).put((short) (corner + 2));
+            indices.put((short) (corner + 2)).put((short) (corner + 3)).put((short) corner);
+        }
+        indices.flip();
+
+        int previousVertexArray = glGetInteger(GL_VERTEX_ARRAY_BINDING);
+        int previousArrayBuffer = glGetInteger(GL_ARRAY_BUFFER_BINDING);
+        vertexArray = glGenVertexArrays();
+        vertexBuffer = glGenBuffers();
+        indexBuffer = glGenBuffers();
+        glBindVertexArray(vertexArray);
+        glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+        glBufferData(GL_ARRAY_BUFFER, vertexBufferSize(), GL_STREAM_DRAW);
+        glVertexAttribPointer(0, 2, GL_FLOAT, false, FLOATS_PER_VERTEX * Float.BYTES, 0);
+        glEnableVertexAttribArray(0);
+        glVertexAttribPointer(1, 2, GL_FLOAT, false, FLOATS_PER_VERTEX * Float.BYTES, 2 * Float.BYTES);
+        glEnableVertexAttribArray(1);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+        glBindVertexArray(previousVertexArray);
+        glBindBuffer(GL_ARRAY_BUFFER, previousArrayBuffer);
+    }
+
+    /**
+     * Compiles a shader, failing with its log if it does not compile
+     */
+    private static int compile(int type, String source) {
+        int shader = glCreateShader(type);
+        glShaderSource(shader, source);
+        glCompileShader(shader);
+        if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) {
+            throw new IllegalStateException("Sprite batch shader failed to compile: " + glGetShaderInfoLog(shader));
+        }
+        return shader;
+    }
+
+    /**
+     * The size of the vertex buffer in bytes
+     */
+    private long vertexBufferSize() {
+        return (long) maxQuads * FLOATS_PER_QUAD * Float.BYTES;
+    }
+
+    @Override
+    public int createTexture(int width, int height, ByteBuffer rgba) {
+        int previousTexture = glGetInteger(GL_TEXTURE_BINDING_2D);
+        int texture = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, texture);
+        /* Sprites are drawn at their pixel size, nearest filtering keeps them sharp and stops neighbours bleeding */
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, rgba);
+        glBindTexture(GL_TEXTURE_2D, previousTexture);
+        textures = Arrays.copyOf(textures, textures.length + 1);
+        textures[textures.length - 1] = texture;
+        return texture;
+    }
+
+    @Override
+    public int createTarget(int width, int height) {
+        int texture = createTexture(width, height, null);
+        int previousFramebuffer = glGetInteger(GL_FRAMEBUFFER_BINDING);
+        int framebuffer = glGenFramebuffers();
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_TEXTURE_2D, texture, 0);
+        int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        glBindFramebuffer(GL_FRAMEBUFFER, previousFramebuffer);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            glDeleteFramebuffers(framebuffer);
+            throw new IllegalStateException("Offscreen target is incomplete: 0x" + Integer.toHexString(status));
+        }
+        int target = framebuffers.length;
+        framebuffers = Arrays.copyOf(framebuffers, target + 1);
+        targetTextures = Arrays.copyOf(targetTextures, target + 1);
+        targetSizes = Arrays.copyOf(targetSizes, 2 * (target + 1));
+        framebuffers[target] = framebuffer;
+        targetTextures[target] = texture;
+        targetSizes[2 * target] = width;
+        targetSizes[2 * target + 1] = height;
+        return texture;
+    }
+
+    @Override
+    public void beginTarget(int texture) {
+        int target = findTarget(texture);
+        previousFramebuffer = glGetInteger(GL_FRAMEBUFFER_BINDING);
+        glGetIntegerv(GL_VIEWPORT, previousViewport);
+        glGetFloatv(GL_COLOR_CLEAR_VALUE, previousClearColour);
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffers[target]);
+        glViewport(0, 0, targetSizes[2 * target], targetSizes[2 * target + 1]);
+        glClearColor(0, 0, 0, 0);
+        glClear(GL_COLOR_BUFFER_BIT);
+        glClearColor(previousClearColour[0], previousClearColour[1], previousClearColour[2],
+                previousClearColour[3]);
+    }
+
+    @Override
+    public void endTarget() {
+        glBindFramebuffer(GL_FRAMEBUFFER, previousFramebuffer);
+        glViewport(previousViewport[0], previousViewport[1], previousViewport[2], previousViewport[3]);
+    }
+
+    /**
+     * Finds the target that draws into a texture
+     * @return The index of the target, or -1 if the texture is not a target's
+     */
+    private int findTarget(int texture) {
+        for (int target = 0; target < targetTextures.length; target++) {
+            if (targetTextures[target] == texture) {
+                return target;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void drawQuads(int texture, FloatBuffer vertices, int quadCount) {
+        if (!stateSaved) {
+            saveState();
+        }
+        glActiveTexture(GL_TEXTURE0);
+        glUseProgram(program);
+        glBindVertexArray(vertexArray);
+        glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+        /* Orphan the buffer so the driver does not wait for the previous draw to finish reading it */
+        glBufferData(GL_ARRAY_BUFFER, vertexBufferSize(), GL_STREAM_DRAW);
+        glBufferSubData(GL_ARRAY_BUFFER, 0, vertices);
+        glBindTexture(GL_TEXTURE_2D, texture);
+        if (findTarget(texture) < 0) {
+            glEnable(GL_BLEND);
+            glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        }
+        else {
+            /* Targets are copied rather than blended, as blending text into them leaves their alpha below 1 at the
+               edges of the letters */
+            glDisable(GL_BLEND);
+        }
+        glDrawElements(GL_TRIANGLES, quadCount * INDICES_PER_QUAD, GL_UNSIGNED_SHORT, 0);
+
+        glBlendFuncSeparate(savedBlendSourceRgb, savedBlendDestinationRgb, savedBlendSourceAlpha,
+                savedBlendDestinationAlpha);
+        if (savedBlend) {
+            glEnable(GL_BLEND);
+        }
+        else {
+            glDisable(GL_BLEND);
+        }
+        glBindTexture(GL_TEXTURE_2D, savedTexture);
+        glActiveTexture(savedActiveTexture);
+        glBindBuffer(GL_ARRAY_BUFFER, savedArrayBuffer);
+        glBindVertexArray(savedVertexArray);
+        glUseProgram(savedProgram);
+    }
+
+    /**
+     * Reads the state Bagel draws with, to restore after each draw this frame
+     */
+    private void saveState() {
+        savedProgram = glGetInteger(GL_CURRENT_PROGRAM);
+        savedVertexArray = glGetInteger(GL_VERTEX_ARRAY_BINDING);
+        savedArrayBuffer = glGetInteger(GL_ARRAY_BUFFER_BINDING);
+        savedActiveTexture = glGetInteger(GL_ACTIVE_TEXTURE);
+        glActiveTexture(GL_TEXTURE0);
+        savedTexture = glGetInteger(GL_TEXTURE_BINDING_2D);
+        glActiveTexture(savedActiveTexture);
+        savedBlend = glIsEnabled(GL_BLEND);
+        savedBlendSourceRgb = glGetInteger(GL_BLEND_SRC_RGB);
+        savedBlendDestinationRgb = glGetInteger(GL_BLEND_DST_RGB);
+        savedBlendSourceAlpha = glGetInteger(GL_BLEND_SRC_ALPHA);
+        savedBlendDestinationAlpha = glGetInteger(GL_BLEND_DST_ALPHA);
+        stateSaved = true;
+    }
+
+    @Override
+    public void endFrame() {
+        stateSaved = false;
+    }
+
+    @Override
+    public void dispose() {
+        glDeleteFramebuffers(framebuffers);
+        framebuffers = new int[0];
+        targetTextures = new int[0];
+        targetSizes = new int[0];
+        glDeleteTextures(textures);
+        textures = new int[0];
+        glDeleteBuffers(vertexBuffer);
+        glDeleteBuffers(indexBuffer);
+        glDeleteVertexArrays(vertexArray);
+        glDeleteProgram(program);
+    }
+}
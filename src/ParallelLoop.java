@@ -0,0 +1,67 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a loop over a range of indices on the common fork join pool, splitting the range in halves until the pieces
+ * are small enough to run directly. Ranges too small to be worth splitting run on the calling thread, without
+ * touching the pool
+ * @author Taiyo Siew-Adachi
+ */
+public final class ParallelLoop {
+    private ParallelLoop() {
+    }
+
+    /**
+     * The body of a loop, run over one piece of the range at a time. Pieces may run at the same time on different
+     * threads, so the body must only write to state belonging to the indices it is given
+     */
+    public interface Body {
+        /**
+         * Runs the loop for the indices from the start of the piece up to its end
+         * @param from The first index of the piece
+         * @param to The index after the last index of the piece
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs the body over the indices from 0 up to the given size, returning once every index has been run
+     * @param size The number of indices
+     * @param grain The number of indices below which a piece is run directly instead of being split
+     * @param body The body of the loop
+     */
+    public static void forRange(int size, int grain, Body body) {
+        if (size <= grain || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            body.run(0, size);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RangeTask(0, size, grain, body));
+    }
+
+    /**
+     * One piece of the range, split in halves until it is no larger than the grain
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final Body body;
+
+        private RangeTask(int from, int to, int grain, Body body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, grain, body), new RangeTask(middle, to, grain, body));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * The back and forth movement of a patrolling entity, moving one step of its speed at a time out to its maximum
+ * displacement either side of where it started, then turning around. The movement is a triangle wave of the number
+ * of steps taken, so where the entity is after any number of steps is worked out directly, and an entity that has
+ * not been updated for a while can be put exactly where stepping it every time would have put it
+ * @author Taiyo Siew-Adachi
+ */
+public class Patrol {
+    private final double originX;
+    private final double speed;
+    /* The number of steps from the origin to the furthest point, the first step at or beyond the max displacement */
+    private final int halfSwing;
+    private final int initialPhase;
+    private long step = 0;
+    private int displacementSteps = 0;
+
+    /**
+     * Constructs a patrol starting at its origin
+     * @param originX The x co-ord the patrol is centred on
+     * @param speed The distance moved each step
+     * @param maxDisplacement The distance from the origin at which the patrol turns around
+     * @param direction The direction of the first step: 1 for positive direction, -1 for opposite direction
+     */
+    public Patrol(double originX, double speed, double maxDisplacement, int direction) {
+        this.originX = originX;
+        this.speed = speed;
+        halfSwing = Math.max(1, (int) Math.ceil(maxDisplacement / speed));
+        /* Heading back through the origin in the opposite direction is halfway through the wave */
+        initialPhase = direction > 0 ? 0 : 2 * halfSwing;
+    }
+
+    /**
+     * Moves the patrol to where it is after the given number of steps from its start
+     * @param step The number of steps taken since the patrol started
+     */
+    public void moveTo(long step) {
+        this.step = step;
+        int phase = (int) ((initialPhase + step) % (4L * halfSwing));
+        if (phase <= halfSwing) { // heading out in the positive direction
+            displacementSteps = phase;
+        }
+        else if (phase <= 3 * halfSwing) { // turned around, heading to the far side
+            displacementSteps = 2 * halfSwing - phase;
+        }
+        else { // turned around again, heading back to the origin
+            displacementSteps = phase - 4 * halfSwing;
+        }
+    }
+
+    /**
+     * Retrieves the number of steps taken since the patrol started
+     * @return The number of steps taken
+     */
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * Retrieves the x co-ord of the patrol after the steps taken so far
+     * @return The x co-ord
+     */
+    public double getX() {
+        return originX + displacementSteps * speed;
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Interface for entities that patrol back and forth on their own. They can be left dormant while far from the
+ * player and moved straight to where they would have been when they are needed again
+ * @author Taiyo Siew-Adachi
+ */
+public interface Patroller extends MovesIndependentFromPlayer {
+    /**
+     * Moves the entity to where it is after the world has been updated the given number of times since the level
+     * started, exactly where updating its position every time would have put it
+     * @param step The number of world updates since the level started
+     */
+    void patrolTo(long step);
+}
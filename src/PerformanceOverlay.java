@@ -0,0 +1,170 @@
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+
+/**
+ * Debug overlay drawn over the game, toggled with F3, showing the frame rate and frame time percentiles over the
+ * last few seconds, the time spent simulating and rendering, the number of entities of each kind, the collision
+ * checks per frame, and the heap usage and allocation rates of the simulation and drawing threads. The counts of the
+ * world are read from the copy handed over with the frame drawn, never from the world, which the simulation may be
+ * changing on its own thread. Frame times are recorded every frame into a fixed ring, but the text is only rebuilt a
+ * few times a second, so drawing the overlay does not allocate
+ * @author Taiyo Siew-Adachi
+ */
+public class PerformanceOverlay {
+    private static final long REFRESH_NANOS = 250_000_000L;
+    /* The number of frames the frame time percentiles are taken over, a few seconds at 60 frames per second */
+    private static final int WINDOW_FRAMES = 256;
+    private static final int FONT_SIZE = 16;
+    private static final double X = 35;
+    private static final double Y = 110;
+    private static final double LINE_HEIGHT = 22;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+    private final Renderer renderer;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    /* Allocation counting is specific to HotSpot's thread bean, the overlay leaves it out on other JVMs */
+    private final ThreadMXBean threads;
+    private final long stageThreadId;
+    private final long[] frameTimes = new long[WINDOW_FRAMES];
+    private final long[] sortedFrameTimes = new long[WINDOW_FRAMES];
+    private int nextFrame = 0;
+    private int windowSize = 0;
+    private String[] lines = new String[0];
+    private boolean visible = false;
+    private long lastRefresh = 0;
+    private long lastAllocatedBytes = -1;
+    private long lastStageAllocatedBytes = -1;
+    private long lastCollisionChecks = -1;
+    private int framesSinceRefresh = 0;
+    private long simNanosSinceRefresh = 0;
+    private long renderNanosSinceRefresh = 0;
+
+    /**
+     * Constructs a hidden overlay
+     * @param renderer The renderer to draw the overlay with
+     * @param stageThreadId The id of the thread the simulation stage runs on, which may be the drawing thread
+     */
+    public PerformanceOverlay(Renderer renderer, long stageThreadId) {
+        this.renderer = renderer;
+        this.stageThreadId = stageThreadId;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        threads = bean instanceof ThreadMXBean && ((ThreadMXBean) bean).isThreadAllocatedMemorySupported() ?
+                (ThreadMXBean) bean : null;
+    }
+
+    /**
+     * Shows the overlay if it is hidden, or hides it if it is shown
+     */
+    public void toggle() {
+        visible = !visible;
+        lastRefresh = 0; // rebuild the text straight away when shown
+    }
+
+    /**
+     * Records the times of a frame, whether or not the overlay is shown, so it has figures as soon as it is shown
+     * @param frameNanos The time the whole frame took
+     * @param simNanos The time spent running simulation steps
+     * @param renderNanos The time spent drawing the game
+     */
+    public void recordFrame(long frameNanos, long simNanos, long renderNanos) {
+        frameTimes[nextFrame] = frameNanos;
+        nextFrame = (nextFrame + 1) % WINDOW_FRAMES;
+        windowSize = Math.min(windowSize + 1, WINDOW_FRAMES);
+        framesSinceRefresh++;
+        simNanosSinceRefresh += simNanos;
+        renderNanosSinceRefresh += renderNanos;
+    }
+
+    /**
+     * Draws the overlay if it is shown, first rebuilding its text if it is due to be refreshed
+     * @param counters The counts of the world handed over with the frame drawn, or null if no level is being played
+     * @param now The current time in nanoseconds, from System.nanoTime()
+     */
+    public void draw(WorldCounters counters, long now) {
+        if (!visible) {
+            return;
+        }
+        if (now - lastRefresh >= REFRESH_NANOS) {
+            refresh(counters, now);
+        }
+        for (int i = 0; i < lines.length; i++) {
+            renderer.drawText(FONT_SIZE, lines[i], X, Y + i * LINE_HEIGHT);
+        }
+    }
+
+    /**
+     * Rebuilds the text of the overlay from the frames since the last refresh, the world's counts and the JVM's beans
+     */
+    private void refresh(WorldCounters counters, long now) {
+        double seconds = (now - lastRefresh) / 1e9;
+        int frames = Math.max(1, framesSinceRefresh);
+        System.arraycopy(frameTimes, 0, sortedFrameTimes, 0, windowSize);
+        Arrays.sort(sortedFrameTimes, 0, windowSize);
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        long drawThreadId = Thread.currentThread().getId();
+        long allocatedBytes = threads == null ? -1 : threads.getThreadAllocatedBytes(drawThreadId);
+        long stageAllocatedBytes = threads == null ? -1 : threads.getThreadAllocatedBytes(stageThreadId);
+        boolean hasRate = lastRefresh != 0;
+
+        String[] next = new String[counters == null ? 4 : 6];
+        next[0] = String.format("FPS %.1f", hasRate ? framesSinceRefresh / seconds : 0.0);
+        next[1] = String.format("frame p50 %.2f  p99 %.2f  max %.2f ms", percentile(50) / NANOS_PER_MILLI,
+                percentile(99) / NANOS_PER_MILLI, percentile(100) / NANOS_PER_MILLI);
+        next[2] = String.format("sim %.2f  render %.2f ms per frame", simNanosSinceRefresh / NANOS_PER_MILLI / frames,
+                renderNanosSinceRefresh / NANOS_PER_MILLI / frames);
+        String allocation = stageThreadId == drawThreadId ?
+                String.format("alloc %s", allocationRate(allocatedBytes, lastAllocatedBytes, hasRate, seconds)) :
+                String.format("alloc sim %s  draw %s",
+                        allocationRate(stageAllocatedBytes, lastStageAllocatedBytes, hasRate, seconds),
+                        allocationRate(allocatedBytes, lastAllocatedBytes, hasRate, seconds));
+        next[3] = String.format("heap %.1f / %.1f MB  %s", heap.getUsed() / BYTES_PER_MEGABYTE,
+                heap.getCommitted() / BYTES_PER_MEGABYTE, allocation);
+        if (counters != null) {
+            next[4] = String.format("entities %d  interactions %d  movers %d  fireballs %d",
+                    counters.getEntityCount(), counters.getInteractionCount(), counters.getMoverCount(),
+                    counters.getProjectileCount());
+            long checks = counters.getCollisionCheckCount();
+            next[5] = String.format("collision checks %.1f per frame",
+                    lastCollisionChecks < 0 || checks < lastCollisionChecks ? 0.0 :
+                            (checks - lastCollisionChecks) / (double) frames);
+            lastCollisionChecks = checks;
+        }
+        else {
+            lastCollisionChecks = -1;
+        }
+        lines = next;
+        lastAllocatedBytes = allocatedBytes;
+        lastStageAllocatedBytes = stageAllocatedBytes;
+        lastRefresh = now;
+        framesSinceRefresh = 0;
+        simNanosSinceRefresh = 0;
+        renderNanosSinceRefresh = 0;
+    }
+
+    /**
+     * Formats the rate a thread allocated at since the last refresh, or a dash if it is not known. A thread that has
+     * ended reads as not known
+     */
+    private static String allocationRate(long allocatedBytes, long lastAllocatedBytes, boolean hasRate,
+                                         double seconds) {
+        if (allocatedBytes < 0 || lastAllocatedBytes < 0 || !hasRate) {
+            return "-";
+        }
+        return String.format("%.2f MB/s", (allocatedBytes - lastAllocatedBytes) / BYTES_PER_MEGABYTE / seconds);
+    }
+
+    /**
+     * Finds a percentile of the frame times in the window, which must have been sorted
+     */
+    private long percentile(double percentile) {
+        if (windowSize == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * windowSize);
+        return sortedFrameTimes[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,122 @@
+import bagel.DrawOptions;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renderer for a simulation thread, which records each frame into a draw list and hands finished lists over to the
+ * thread that draws them. Three pooled lists are passed between the threads by atomically swapping their indices:
+ * the simulation records into one, the newest finished one waits in the middle, and the drawing thread draws the
+ * third. Neither thread waits for the other, and a frame that is not drawn in time is replaced by the next
+ * @author Taiyo Siew-Adachi
+ */
+public class PipelinedRenderer implements Renderer {
+    private static final int INDEX_MASK = 3;
+    /* Set in the waiting index when the list there has not been drawn yet */
+    private static final int FRESH = 4;
+    private final Renderer measure;
+    /* The thread the renderer measuring text draws on, the only one text can be measured on */
+    private final Thread measureThread;
+    private final DrawList[] lists = new DrawList[3];
+    /* The index of the list waiting between the threads, and whether it is fresh */
+    private final AtomicInteger waiting = new AtomicInteger(0);
+    /* Only touched by the simulation thread */
+    private int recording = 1;
+    /* Only touched by the drawing thread */
+    private int drawing = 2;
+
+    /**
+     * Constructs the renderer with three empty draw lists
+     * @param measure The renderer the lists are drawn with, which text is measured with. Measuring text has to be
+     *                done on the thread that renderer draws on, which must be the thread constructing the renderer
+     */
+    public PipelinedRenderer(Renderer measure) {
+        this.measure = measure;
+        measureThread = Thread.currentThread();
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new DrawList(measure);
+        }
+    }
+
+    @Override
+    public void drawSprite(Sprite sprite, double x, double y) {
+        lists[recording].drawSprite(sprite, x, y);
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y) {
+        lists[recording].drawText(fontSize, text, x, y);
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y, DrawOptions options) {
+        lists[recording].drawText(fontSize, text, x, y, options);
+    }
+
+    /**
+     * Measures text with the renderer the frames are drawn with. Text can only be measured on the thread that
+     * constructed this renderer, which must be the thread the frames are drawn on, so anything recording on the
+     * simulation thread measures its text up front
+     * @throws IllegalStateException if called on any other thread
+     */
+    @Override
+    public double getTextWidth(int fontSize, String text) {
+        if (Thread.currentThread() != measureThread) {
+            throw new IllegalStateException("Text can only be measured on " + measureThread.getName());
+        }
+        return measure.getTextWidth(fontSize, text);
+    }
+
+    @Override
+    public void setLayer(int layer) {
+        lists[recording].setLayer(layer);
+    }
+
+    /**
+     * Retrieves the counts of the world to record with the frame being recorded. Called on the simulation thread
+     * @return The counts of the world for the frame being recorded
+     */
+    public WorldCounters getRecordingCounters() {
+        return lists[recording].getCounters();
+    }
+
+    /**
+     * Retrieves the counts of the world recorded with the frame last drawn. Called on the drawing thread
+     * @return The counts of the world for the frame last drawn
+     */
+    public WorldCounters getDrawnCounters() {
+        return lists[drawing].getCounters();
+    }
+
+    /**
+     * Hands the frame just recorded over to the drawing thread, and starts recording the next frame into a free list.
+     * Called on the simulation thread
+     */
+    public void publish() {
+        int previous = waiting.getAndSet(recording | FRESH);
+        recording = previous & INDEX_MASK;
+        lists[recording].clear();
+    }
+
+    /**
+     * Draws the newest frame handed over, or the last one drawn again if no newer frame is ready. Called on the
+     * drawing thread
+     * @param renderer The renderer to draw with
+     */
+    public void drawLatest(Renderer renderer) {
+        if ((waiting.get() & FRESH) != 0) {
+            drawing = waiting.getAndSet(drawing) & INDEX_MASK;
+        }
+        lists[drawing].draw(renderer);
+    }
+
+    /**
+     * Empties every list, so nothing from before is drawn. Only called while neither thread is using the renderer
+     */
+    public void clear() {
+        for (DrawList list: lists) {
+            list.clear();
+        }
+        waiting.set(0);
+        recording = 1;
+        drawing = 2;
+    }
+}
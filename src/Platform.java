@@ -1,38 +1,38 @@
-import bagel.Image;
-import java.util.Properties;
-
 /**
  * Represents the platform the player runs on and enemy boss stands on. Player cannot go below the platform while alive
  * @author Taiyo Siew-Adachi
  */
 public class Platform extends Entity{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
-    private final Image PLATFORM;
-    private final double PLATFORM_EDGE = 3000;
+    private final double windowWidth;
 
     /**
-     * Constructor for platform, reads from property file and assigns values
+     * Constructor for platform, assigns values from the game configuration
      * @param x X co-ord of the platform read from the csv file
      * @param y Y co-ord of the platform read from the csv file
+     * @param config The configuration of the game
+     */
+    public Platform(double x, double y, GameConfig config) {
+        super(x, y, config.getPlatform().getSpeed(), TextureCache.acquire(config.getPlatform().getImage()));
+        windowWidth = config.getWindowWidth();
+    }
+
+    /**
+     * The platform spans the whole level, so it is always drawn
+     * @return false, the platform cannot be culled
      */
-    public Platform(double x, double y) {
-        super(x, y,
-                Double.parseDouble(game_props.getProperty("gameObjects.platform.speed")),
-                new Image(game_props.getProperty("gameObjects.platform.image")));
-        PLATFORM = new Image(game_props.getProperty("gameObjects.platform.image"));
+    @Override
+    public boolean isCullable() {
+        return false;
     }
 
     /**
-     * Render platform image to game window
+     * Render platform image to game window, repeated across the window so the ground never runs out however long
+     * the level is
+     * @param renderer The renderer to draw with
      */
     @Override
-    public void draw() {
-        if (getX() < PLATFORM_EDGE) {
-            super.draw();
-        }
-        else {
-            PLATFORM.draw(PLATFORM_EDGE, getY());
-        }
+    public void draw(Renderer renderer) {
+        renderer.drawStrip(getSprite(), getDrawX(), getY(), 0, windowWidth);
     }
 
-}
\ No newline at end of file
+}
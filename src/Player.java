@@ -1,5 +1,3 @@
-import bagel.Image;
-import java.util.Properties;
 import java.lang.Math;
 
 /**
@@ -7,8 +5,7 @@ import java.lang.Math;
  * @author Taiyo Siew-Adachi
  */
 public class Player extends Entity implements ShootsFireballs, HasHealth{
-    private static final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
-    private final Image PLAYER_IMAGE_LEFT;
+    private final Sprite PLAYER_IMAGE_LEFT;
     private final double initialY;
     private final double radius;
     private int score = 0;
@@ -21,43 +18,49 @@ public class Player extends Entity implements ShootsFireballs, HasHealth{
     private final Timer invincibleTimer;
     private final Timer doubleScoreTimer;
     private boolean facingRight = true;
-    private final ScreenMessages powerUps;
     private static final double NO_LATERAL_MOVEMENT = 0;
     private static final double DECELERATION = 1.0;
     private static final int DOUBLE_SCORE = 2;
 
     /**
-     * Constructor for player, reads and assigns values from property file
+     * Constructor for player, assigns values from the game configuration
      * @param x X co-ord of the player read from the csv file
      * @param y Y co-ord of the player boss read from the csv file
+     * @param config The configuration of the game
      */
-    public Player(double x, double y) {
-        super(x, y,
-                NO_LATERAL_MOVEMENT,
-                new Image(game_props.getProperty("gameObjects.player.imageRight")));
+    public Player(double x, double y, GameConfig config) {
+        super(x, y, NO_LATERAL_MOVEMENT, TextureCache.acquire(config.getPlayer().getImage()));
         initialY = y;
         lastGroundY = y;
-        health = Double.parseDouble(game_props.getProperty("gameObjects.player.health"));
-        radius = Double.parseDouble(game_props.getProperty("gameObjects.player.radius"));
-        PLAYER_IMAGE_LEFT = new Image(game_props.getProperty("gameObjects.player.imageLeft"));
-        powerUps = new ScreenMessages();
-        invincibleTimer = InvinciblePower.getTimer();
-        doubleScoreTimer = DoubleScore.getTimer();
+        health = config.getPlayerHealthValue();
+        radius = config.getPlayer().getRadius();
+        PLAYER_IMAGE_LEFT = TextureCache.acquire(config.getPlayerImageLeft());
+        invincibleTimer = new Timer(config.getInvinciblePowerMaxFrames());
+        doubleScoreTimer = new Timer(config.getDoubleScoreMaxFrames());
     }
 
     /**
      * Sets the player vertical speed to a new speed
      */
     @Override
-    public void draw() {
+    public void draw(Renderer renderer) {
         if (facingRight) {
-            super.draw();
+            super.draw(renderer);
         }
         else {
-            PLAYER_IMAGE_LEFT.draw(getX(), getY());
+            renderer.drawSprite(PLAYER_IMAGE_LEFT, getDrawX(), getDrawY());
         }
     }
 
+    /**
+     * Releases the sprites of the player facing either direction
+     */
+    @Override
+    public void releaseSprites() {
+        super.releaseSprites();
+        TextureCache.release(PLAYER_IMAGE_LEFT);
+    }
+
     /**
      * Sets the player vertical speed to the jump speed
      */
@@ -129,10 +132,12 @@ public class Player extends Entity implements ShootsFireballs, HasHealth{
     }
 
     /**
-     * Creates and returns a new Fireball at the position of Player
+     * Shoots a Fireball from the position of Player in the direction it is facing
+     * @param projectiles The projectiles of the world the fireball is shot in
+     * @return The fireball that was shot
      */
-    public Fireball shootFireball() {
-        return new Fireball(getX(), getY(), this, facingRight, initialY);
+    public Fireball shootFireball(Projectiles projectiles) {
+        return projectiles.spawn(getScreenX(), getY(), this, facingRight, initialY);
     }
 
     /**
@@ -148,11 +153,9 @@ public class Player extends Entity implements ShootsFireballs, HasHealth{
      */
     public void decrementTimers() {
         if (invincibleTimer.isActive()) {
-            powerUps.invincibility();
             invincibleTimer.countdown();
         }
         if (doubleScoreTimer.isActive()) {
-            powerUps.doubleScore();
             doubleScoreTimer.countdown();
         }
     }
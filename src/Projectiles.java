@@ -0,0 +1,174 @@
+import jdk.jfr.EventType;
+
+import java.util.Arrays;
+
+/**
+ * Manages the fireballs in flight in a world. Live fireballs are kept packed at the front of an array and removed by
+ * swapping the last one into their place, and removed fireballs are kept in a pool to be reused by the next shot, so
+ * firing does not allocate once the pool has grown to the number of fireballs in flight
+ * @author Taiyo Siew-Adachi
+ */
+public class Projectiles {
+    private static final int INITIAL_CAPACITY = 16;
+    /* Checked before building a burst event, so nothing is allocated for bursts when no recording wants them */
+    private static final EventType BURST_EVENT = EventType.getEventType(GameEvents.FireballBurst.class);
+    private final Camera camera;
+    private final GameConfig config;
+    private Fireball[] live = new Fireball[INITIAL_CAPACITY];
+    private int liveCount = 0;
+    private Fireball[] pool = new Fireball[INITIAL_CAPACITY];
+    private int poolCount = 0;
+    /* The fireballs shot in the current simulation step, reported together as one event at the end of it */
+    private long burstStart = 0;
+    private int burstSpawned = 0;
+    private int burstAllocated = 0;
+
+    /**
+     * Constructs an empty set of projectiles for a world
+     * @param camera The camera of the world, attached to every fireball
+     * @param config The configuration of the game, that fireballs are constructed from
+     */
+    public Projectiles(Camera camera, GameConfig config) {
+        this.camera = camera;
+        this.config = config;
+    }
+
+    /**
+     * Shoots a fireball from the given position on screen, reusing a fireball from the pool if there is one
+     * @param screenX The x co-ord on screen the fireball is shot from
+     * @param y The y co-ord the fireball is shot from
+     * @param shotBy The entity that shot the fireball
+     * @param shotToTheRight Indicates whether the fireball is shot to the right
+     * @param groundY The y co-ord the fireball bounces off
+     * @return The fireball that was shot
+     */
+    public Fireball spawn(double screenX, double y, ShootsFireballs shotBy, boolean shotToTheRight, double groundY) {
+        if (burstSpawned == 0) {
+            burstStart = System.nanoTime();
+        }
+        burstSpawned++;
+        Fireball fireball;
+        if (poolCount > 0) {
+            fireball = pool[--poolCount];
+            pool[poolCount] = null;
+            fireball.reset(screenX, y, shotBy, shotToTheRight, groundY);
+        }
+        else {
+            burstAllocated++;
+            fireball = new Fireball(screenX, y, shotBy, shotToTheRight, groundY, config);
+            fireball.setCamera(camera);
+            fireball.setScreenX(screenX); // shot from the shooter's position on screen
+        }
+        if (liveCount == live.length) {
+            live = Arrays.copyOf(live, live.length * 2);
+        }
+        live[liveCount++] = fireball;
+        return fireball;
+    }
+
+    /**
+     * Reports the fireballs shot since the last call as one burst, called at the end of each simulation step. The
+     * event is only built when a recording has it enabled
+     */
+    public void endBurst() {
+        if (burstSpawned == 0) {
+            return;
+        }
+        if (BURST_EVENT.isEnabled()) {
+            GameEvents.FireballBurst burst = new GameEvents.FireballBurst();
+            if (burst.shouldCommit()) {
+                burst.spawned = burstSpawned;
+                burst.allocated = burstAllocated;
+                burst.inFlight = liveCount;
+                burst.burstTime = System.nanoTime() - burstStart;
+                burst.commit();
+            }
+        }
+        burstSpawned = 0;
+        burstAllocated = 0;
+    }
+
+    /**
+     * Updates the positions of all fireballs in flight
+     */
+    public void updatePositions() {
+        for (int i = 0; i < liveCount; i++) {
+            live[i].updatePos();
+        }
+    }
+
+    /**
+     * Removes the fireballs that can disappear and returns them to the pool
+     */
+    public void sweep() {
+        int i = 0;
+        while (i < liveCount) {
+            Fireball fireball = live[i];
+            if (fireball.canDisappear()) {
+                live[i] = live[--liveCount]; // swap the last fireball into this slot, and check it next
+                live[liveCount] = null;
+                release(fireball);
+            }
+            else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Draws all fireballs in flight
+     * @param renderer The renderer to draw with
+     */
+    public void draw(Renderer renderer) {
+        for (int i = 0; i < liveCount; i++) {
+            live[i].draw(renderer);
+        }
+    }
+
+    /**
+     * Retrieves a fireball in flight
+     * @param index The index of the fireball, from 0 up to the number of fireballs in flight
+     * @return The fireball at that index
+     */
+    public Fireball get(int index) {
+        return live[index];
+    }
+
+    /**
+     * Retrieves the number of fireballs in flight
+     * @return The number of fireballs in flight
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Retrieves the number of fireballs waiting in the pool to be reused
+     * @return The number of pooled fireballs
+     */
+    public int pooledCount() {
+        return poolCount;
+    }
+
+    /**
+     * Releases the sprites of every fireball in flight or in the pool, when the world is discarded
+     */
+    public void releaseSprites() {
+        for (int i = 0; i < liveCount; i++) {
+            live[i].releaseSprites();
+        }
+        for (int i = 0; i < poolCount; i++) {
+            pool[i].releaseSprites();
+        }
+    }
+
+    /**
+     * Puts a fireball back in the pool
+     */
+    private void release(Fireball fireball) {
+        if (poolCount == pool.length) {
+            pool = Arrays.copyOf(pool, pool.length * 2);
+        }
+        pool[poolCount++] = fireball;
+    }
+}
@@ -0,0 +1,107 @@
+import bagel.DrawOptions;
+
+/**
+ * Renderer interface that entities and screen messages draw through, so the game can run with or without a window
+ * @author Taiyo Siew-Adachi
+ */
+public interface Renderer {
+    /** Returned by createTarget when the renderer cannot draw offscreen */
+    int NO_TARGET = -1;
+
+    /**
+     * Draws a sprite centred at the given co-ords
+     * @param sprite The sprite to draw
+     * @param x The x co-ord of the centre of the sprite
+     * @param y The y co-ord of the centre of the sprite
+     */
+    void drawSprite(Sprite sprite, double x, double y);
+
+    /**
+     * Draws text in the game font with its bottom left corner at the given co-ords
+     * @param fontSize The size of the font
+     * @param text The text to draw
+     * @param x The x co-ord of the text
+     * @param y The y co-ord of the text
+     */
+    void drawText(int fontSize, String text, double x, double y);
+
+    /**
+     * Draws text in the game font with its bottom left corner at the given co-ords
+     * @param fontSize The size of the font
+     * @param text The text to draw
+     * @param x The x co-ord of the text
+     * @param y The y co-ord of the text
+     * @param options The options to draw the text with, such as its colour
+     */
+    void drawText(int fontSize, String text, double x, double y, DrawOptions options);
+
+    /**
+     * Measures the width of text in the game font
+     * @param fontSize The size of the font
+     * @param text The text to measure
+     * @return The width of the text in pixels
+     */
+    double getTextWidth(int fontSize, String text);
+
+    /**
+     * Sets the layer the following sprites are drawn in. Renderers that reorder sprites to draw them in batches keep
+     * sprites of a higher layer over those of a lower layer; other renderers draw sprites in the order given
+     * @param layer The layer, from 0 up to 65535
+     */
+    default void setLayer(int layer) {
+    }
+
+    /**
+     * Draws anything still held back for batching, at the end of a frame. Renderers that draw straight away do nothing
+     */
+    default void endFrame() {
+    }
+
+    /**
+     * Draws a sprite repeated side by side in a strip across part of the window, such as the ground
+     * @param sprite The sprite to repeat
+     * @param x The x co-ord of the centre of one of the repeats, which the rest line up with
+     * @param y The y co-ord of the centre of the strip
+     * @param fromX The x co-ord of the left edge of the part of the window to cover
+     * @param toX The x co-ord of the right edge of the part of the window to cover
+     */
+    default void drawStrip(Sprite sprite, double x, double y, double fromX, double toX) {
+        double tileWidth = sprite.getWidth();
+        double left = x - tileWidth / 2;
+        left -= Math.ceil((left - fromX) / tileWidth) * tileWidth; // the first repeat that reaches fromX
+        for (double tileX = left; tileX < toX; tileX += tileWidth) {
+            drawSprite(sprite, tileX + tileWidth / 2, y);
+        }
+    }
+
+    /**
+     * Creates an offscreen target that sprites and text can be drawn into once, then drawn from as a single image.
+     * Targets are opaque, covering whatever is drawn under them
+     * @param width The width of the target in pixels
+     * @param height The height of the target in pixels
+     * @return The handle of the target, or NO_TARGET if the renderer cannot draw offscreen
+     */
+    default int createTarget(int width, int height) {
+        return NO_TARGET;
+    }
+
+    /**
+     * Clears a target and draws everything after this into it, until endTarget is called
+     * @param target The handle of the target
+     */
+    default void beginTarget(int target) {
+    }
+
+    /**
+     * Goes back to drawing into the window after drawing into a target
+     */
+    default void endTarget() {
+    }
+
+    /**
+     * Draws what was drawn into a target, with its top left corner at the top left of the window
+     * @param target The handle of the target
+     */
+    default void drawTarget(int target) {
+    }
+}
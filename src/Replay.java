@@ -0,0 +1,204 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A recording of one play of a level: the level, the seed of its world, and the keys held and pressed at every
+ * simulation step, so the play can be run again exactly without a window. The inputs of a step are packed into one
+ * byte, the held keys in the low bits and the pressed keys in the high bits, and runs of steps with the same inputs
+ * are stored once with their length. The score and health at the end are stored too, so a replay also checks that
+ * the game still plays out the same.
+ * File format, big endian: the magic number, version, level, seed, step count, final score and final health, then
+ * each run as its input byte and its length in 7 bit groups, lowest first
+ * @author Taiyo Siew-Adachi
+ */
+public class Replay {
+    /** The bytes "SMRP" at the start of every replay file */
+    public static final int MAGIC = 0x534D5250;
+    /** The version of the replay file format */
+    public static final int VERSION = 1;
+    private static final int PRESSED_SHIFT = 4;
+    private static final int KEY_MASK = (1 << PRESSED_SHIFT) - 1;
+    private final int level;
+    private final long seed;
+    private byte[] inputs;
+    private int stepCount;
+    private int finalScore;
+    private double finalHealth;
+
+    /**
+     * Starts a new recording of a level
+     * @param level The number of the level, from 1 to 3
+     * @param seed The seed of the level's world
+     */
+    public Replay(int level, long seed) {
+        this(level, seed, new byte[1024], 0);
+    }
+
+    private Replay(int level, long seed, byte[] inputs, int stepCount) {
+        this.level = level;
+        this.seed = seed;
+        this.inputs = inputs;
+        this.stepCount = stepCount;
+    }
+
+    /**
+     * Records the inputs of the next simulation step
+     * @param input The state of the keys seen by the step
+     */
+    public void record(InputState input) {
+        if (stepCount == inputs.length) {
+            inputs = Arrays.copyOf(inputs, inputs.length * 2);
+        }
+        inputs[stepCount++] = (byte) ((input.getHeld() & KEY_MASK) | (input.getPressed() & KEY_MASK) << PRESSED_SHIFT);
+    }
+
+    /**
+     * Records how the level ended, checked when the replay is run again
+     * @param player The player at the end of the level
+     */
+    public void finish(Player player) {
+        finalScore = player.getScore();
+        finalHealth = player.getHealth();
+    }
+
+    /**
+     * Sets the inputs of a recorded step, to be run by the world
+     * @param step The number of the step, from 0
+     * @param input The state of the keys to set
+     */
+    public void replay(int step, InputState input) {
+        input.clearPresses();
+        input.latch(inputs[step] & KEY_MASK, (inputs[step] >> PRESSED_SHIFT) & KEY_MASK);
+    }
+
+    /**
+     * Writes the replay to a file, creating its directory if needed
+     * @param file The path to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(level);
+            out.writeLong(seed);
+            out.writeInt(stepCount);
+            out.writeInt(finalScore);
+            out.writeDouble(finalHealth);
+            int step = 0;
+            while (step < stepCount) {
+                int run = 1;
+                while (step + run < stepCount && inputs[step + run] == inputs[step]) {
+                    run++;
+                }
+                out.writeByte(inputs[step]);
+                for (int rest = run; ; rest >>>= 7) {
+                    if (rest < 0x80) {
+                        out.writeByte(rest);
+                        break;
+                    }
+                    out.writeByte((rest & 0x7F) | 0x80);
+                }
+                step += run;
+            }
+        }
+    }
+
+    /**
+     * Reads a replay from a file
+     * @param file The path to the replay file
+     * @return The replay
+     * @throws IOException if the file cannot be read, or is not a replay of a version this game can run
+     */
+    public static Replay read(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a replay file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(file + " is a version " + version + " replay, expected version " + VERSION);
+            }
+            int level = in.readInt();
+            long seed = in.readLong();
+            int stepCount = in.readInt();
+            if (stepCount < 0) {
+                throw new IOException(file + " has a negative step count");
+            }
+            Replay replay = new Replay(level, seed, new byte[stepCount], stepCount);
+            replay.finalScore = in.readInt();
+            replay.finalHealth = in.readDouble();
+            int step = 0;
+            while (step < stepCount) {
+                byte input = in.readByte();
+                int run = 0;
+                for (int shift = 0; ; shift += 7) {
+                    int group = in.readUnsignedByte();
+                    run |= (group & 0x7F) << shift;
+                    if ((group & 0x80) == 0) {
+                        break;
+                    }
+                }
+                if (run <= 0 || run > stepCount - step) {
+                    throw new IOException(file + " has a run of inputs past its last step");
+                }
+                Arrays.fill(replay.inputs, step, step + run, input);
+                step += run;
+            }
+            return replay;
+        }
+    }
+
+    /**
+     * Retrieves the number of the level played
+     * @return The level, from 1 to 3
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Retrieves the seed of the level's world
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Retrieves the number of simulation steps recorded
+     * @return The number of steps
+     */
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Retrieves the player's score when the recording finished
+     * @return The final score
+     */
+    public int getFinalScore() {
+        return finalScore;
+    }
+
+    /**
+     * Retrieves the player's health when the recording finished
+     * @return The final health
+     */
+    public double getFinalHealth() {
+        return finalHealth;
+    }
+}
@@ -0,0 +1,77 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Runs recorded plays of levels again without a window, as fast as the CPU allows, feeding each recorded step's
+ * inputs into a world built from the recorded seed. Reports how fast the replay ran and whether it ended with the
+ * same score and health as when it was recorded, so real plays can be used as benchmarks and regression checks.
+ * Usage: java ReplayRunner replayFile... [-repeat n]
+ * @author Taiyo Siew-Adachi
+ */
+public class ReplayRunner {
+
+    /**
+     * The entry point for running replays, exiting with status 1 if any replay did not end the same way
+     * @param args The replay files, optionally followed by -repeat and the number of times to run each one
+     * @throws IOException if a replay file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        int repeats = 1;
+        int files = args.length;
+        if (args.length >= 2 && args[args.length - 2].equals("-repeat")) {
+            repeats = Integer.parseInt(args[args.length - 1]);
+            files -= 2;
+        }
+        if (files == 0) {
+            System.err.println("Usage: java ReplayRunner replayFile... [-repeat n]");
+            System.exit(2);
+        }
+        GameConfig config = GameConfig.load("res/app.properties", "res/message_en.properties");
+        boolean allMatched = true;
+        for (int f = 0; f < files; f++) {
+            Replay replay = Replay.read(Paths.get(args[f]));
+            for (int r = 0; r < repeats; r++) {
+                allMatched &= run(args[f], replay, config);
+            }
+        }
+        if (!allMatched) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs one replay from the start of its level and reports the result
+     * @param name The name of the replay to report it by
+     * @param replay The replay to run
+     * @param config The configuration of the game
+     * @return true if the replay ended with the recorded score and health, false otherwise
+     */
+    public static boolean run(String name, Replay replay, GameConfig config) {
+        World world = World.newWorld(replay.getLevel(), config, replay.getSeed());
+        Player player = world.getPlayer();
+        InputState input = new InputState();
+        FrameProfiler profiler = new FrameProfiler();
+        world.setProfiler(profiler);
+        long start = System.nanoTime(); // the level is loaded before timing, so only the simulation is measured
+        long time = start;
+        for (int step = 0; step < replay.getStepCount(); step++) {
+            replay.replay(step, input);
+            world.step(input);
+            time = profiler.record(FrameProfiler.Phase.STEP, time);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        boolean matched = player.getScore() == replay.getFinalScore() && player.getHealth() == replay.getFinalHealth();
+        String result = world.getEndFlag().getCollided() ? "WON" : player.isAlive() ? "STOPPED" : "LOST";
+        System.out.printf("%s: level %d (seed %d) %s after %d steps, score %d, health %.2f, %s, " +
+                        "%.0f steps/s (%.0fx real time)%n",
+                name, replay.getLevel(), replay.getSeed(), result, replay.getStepCount(), player.getScore(),
+                player.getHealth(), matched ? "matches the recording" : "DOES NOT MATCH the recording (score " +
+                        replay.getFinalScore() + ", health " + replay.getFinalHealth() + ")",
+                replay.getStepCount() / seconds, replay.getStepCount() / seconds / SimulationClock.STEPS_PER_SECOND);
+        LatencyHistogram steps = profiler.getHistogram(FrameProfiler.Phase.STEP);
+        System.out.printf("  step times: p50 %d ns, p99 %d ns, p99.9 %d ns, max %d ns%n", steps.getPercentile(50),
+                steps.getPercentile(99), steps.getPercentile(99.9), steps.getMax());
+        world.dispose();
+        return matched;
+    }
+}
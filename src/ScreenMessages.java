@@ -1,57 +1,86 @@
-import bagel.*;
+import bagel.DrawOptions;
 import bagel.util.Colour;
-import java.util.Properties;
 
 /**
  * Represents the screens that are rendered to the screen at different stages of the game
  * @author Taiyo Siew-Adachi
  */
 public class ScreenMessages {
-    private final Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
-    private final Properties message_props = IOUtils.readPropertiesFile("res/message_en.properties");
-    private final String font = game_props.getProperty("font");
-    private final Font titleFont = new Font(font, Integer.parseInt(game_props.getProperty("title.fontSize")));
-    private final Font scorefont = new Font(font, Integer.parseInt(game_props.getProperty("score.fontSize")));
-    private final Font msgFont = new Font(font, Integer.parseInt(game_props.getProperty("message.fontSize")));
-    private final Font instructFont = new Font(font, Integer.parseInt(game_props.getProperty("instruction.fontSize")));
-    private final Font playerHealthFont = new Font(font, Integer.parseInt(game_props.getProperty("playerHealth.fontSize")));
-    private final Font bossHealthFont = new Font(font, Integer.parseInt(game_props.getProperty("enemyBossHealth.fontSize")));
+    private final GameConfig.TextStyle title;
+    private final GameConfig.TextStyle score;
+    private final GameConfig.TextStyle message;
+    private final GameConfig.TextStyle instruction;
+    private final GameConfig.TextStyle playerHealth;
+    private final GameConfig.TextStyle bossHealth;
+    private final String titleText;
+    private final String scoreText;
+    private final String healthText;
+    private final int windowWidth;
+    private final int windowHeight;
     private final DrawOptions red = new DrawOptions().setBlendColour(Colour.RED);
+    private final DrawOptions gold = new DrawOptions().setBlendColour(new Colour(255, 215, 0));
+    private final DrawOptions blue = new DrawOptions().setBlendColour(Colour.BLUE);
+    private final Renderer renderer;
+    private final double fightX;
     private double xCord;
     private double yCord;
 
+    /**
+     * Constructs the screen messages, drawn through the given renderer
+     * @param renderer The renderer to draw text with
+     * @param config The configuration of the game, with the font sizes and positions of the text
+     */
+    public ScreenMessages(Renderer renderer, GameConfig config) {
+        this.renderer = renderer;
+        title = config.getTitle();
+        score = config.getScore();
+        message = config.getMessage();
+        instruction = config.getInstruction();
+        playerHealth = config.getPlayerHealth();
+        bossHealth = config.getEnemyBossHealth();
+        titleText = config.getTitleText();
+        scoreText = config.getScoreText();
+        healthText = config.getHealthText();
+        windowWidth = config.getWindowWidth();
+        windowHeight = config.getWindowHeight();
+        /* Measured up front, as the in play screen may be drawn on a thread text cannot be measured on */
+        fightX = setTextPos(message.getFontSize(), "FIGHT!");
+    }
+
     /**
      * Renders text to be drawn to the screen before the game starts
      */
     public void startScreen() {
-        xCord = Double.parseDouble(game_props.getProperty("title.x"));
-        yCord = Double.parseDouble(game_props.getProperty("title.y"));
-        titleFont.drawString(message_props.getProperty("title"), xCord, yCord);
-        xCord = setTextPos(instructFont, "USE ARROW KEYS TO MOVE");
-        yCord = Double.parseDouble(game_props.getProperty("instruction.y"));
-        instructFont.drawString("USE ARROW KEYS TO MOVE", xCord, yCord);
-        xCord = setTextPos(msgFont, "ENTER LEVEL TO START - 1, 2, 3");
+        renderer.drawText(title.getFontSize(), titleText, title.getX(), title.getY());
+        xCord = setTextPos(instruction.getFontSize(), "USE ARROW KEYS TO MOVE");
+        yCord = instruction.getY();
+        renderer.drawText(instruction.getFontSize(), "USE ARROW KEYS TO MOVE", xCord, yCord);
+        xCord = setTextPos(message.getFontSize(), "ENTER LEVEL TO START - 1, 2, 3");
         yCord += 30;
-        msgFont.drawString("ENTER LEVEL TO START - 1, 2, 3", xCord, yCord);
+        renderer.drawText(message.getFontSize(), "ENTER LEVEL TO START - 1, 2, 3", xCord, yCord);
     }
 
     /**
-     * Renders score and health(s) to be drawn to the screen while game is in play
-     * @param score Score of the player to be drawn to game window
-     * @param playerHealth Current health of the player
+     * Renders score, health(s) and active power ups to be drawn to the screen while game is in play
+     * @param player The player whose score, health and power ups are drawn to game window
      * @param enemyBoss The boss in the game (null if it does not exist)
      */
-    public void inPlayScreen(int score, double playerHealth, EnemyBoss enemyBoss) {
-        xCord = Double.parseDouble(game_props.getProperty("score.x"));
-        yCord = Double.parseDouble(game_props.getProperty("score.y"));
-        scorefont.drawString(message_props.getProperty("score") + score, xCord, yCord);
-        xCord = Double.parseDouble(game_props.getProperty("playerHealth.x"));
-        yCord = Double.parseDouble(game_props.getProperty("playerHealth.y"));
-        playerHealthFont.drawString(message_props.getProperty("health") + (int)(100*playerHealth), xCord, yCord);
+    public void inPlayScreen(Player player, EnemyBoss enemyBoss) {
+        renderer.drawText(score.getFontSize(), scoreText + player.getScore(), score.getX(), score.getY());
+        renderer.drawText(playerHealth.getFontSize(), healthText + (int)(100*player.getHealth()),
+                playerHealth.getX(), playerHealth.getY());
         if (enemyBoss != null) {
-            xCord = Double.parseDouble(game_props.getProperty("enemyBossHealth.x"));
-            yCord = Double.parseDouble(game_props.getProperty("enemyBossHealth.y"));
-            bossHealthFont.drawString(message_props.getProperty("health") + (int)(100*enemyBoss.getHealth()), xCord, yCord, red);
+            renderer.drawText(bossHealth.getFontSize(), healthText + (int)(100*enemyBoss.getHealth()),
+                    bossHealth.getX(), bossHealth.getY(), red);
+            if (enemyBoss.inFireballRange(player)) {
+                fight(); // customisation
+            }
+        }
+        if (player.getInvincibleTimer().isActive()) {
+            invincibility();
+        }
+        if (player.getDoubleScoreTimer().isActive()) {
+            doubleScore();
         }
 
     }
@@ -60,24 +89,24 @@ public class ScreenMessages {
      * Renders message and instructions to be drawn to the screen when game is won
      */
     public void winScreen() { // Did not use game props for text, due to centre alignment
-        xCord = setTextPos(msgFont, "CONGRATULATIONS, YOU WON!");
-        yCord = Double.parseDouble(game_props.getProperty("message.y"));
-        msgFont.drawString("CONGRATULATIONS, YOU WON!", xCord, yCord);
-        xCord = setTextPos(instructFont, "PRESS SPACE TO CONTINUE");
+        xCord = setTextPos(message.getFontSize(), "CONGRATULATIONS, YOU WON!");
+        yCord = message.getY();
+        renderer.drawText(message.getFontSize(), "CONGRATULATIONS, YOU WON!", xCord, yCord);
+        xCord = setTextPos(instruction.getFontSize(), "PRESS SPACE TO CONTINUE");
         yCord += 30;
-        instructFont.drawString("PRESS SPACE TO CONTINUE", xCord, yCord);
+        renderer.drawText(instruction.getFontSize(), "PRESS SPACE TO CONTINUE", xCord, yCord);
     }
 
     /**
      * Renders message and instructions to be drawn to the screen when the game is lost
      */
     public void loseScreen() { // Did not use game props for text, due to centre alignment
-        xCord = setTextPos(msgFont, "GAME OVER, YOU LOST!");
-        yCord = Double.parseDouble(game_props.getProperty("message.y"));
-        msgFont.drawString("GAME OVER, YOU LOST!", xCord, yCord);
-        xCord = setTextPos(instructFont, "PRESS SPACE TO CONTINUE");
+        xCord = setTextPos(message.getFontSize(), "GAME OVER, YOU LOST!");
+        yCord = message.getY();
+        renderer.drawText(message.getFontSize(), "GAME OVER, YOU LOST!", xCord, yCord);
+        xCord = setTextPos(instruction.getFontSize(), "PRESS SPACE TO CONTINUE");
         yCord += 30;
-        instructFont.drawString("PRESS SPACE TO CONTINUE", xCord, yCord);
+        renderer.drawText(instruction.getFontSize(), "PRESS SPACE TO CONTINUE", xCord, yCord);
     }
 
 
@@ -85,34 +114,30 @@ public class ScreenMessages {
      * Tells user that double score is active
      */
     public void doubleScore() {
-        xCord = Double.parseDouble(game_props.getProperty("playerHealth.x")) - 120;
-        yCord = Double.parseDouble(game_props.getProperty("playerHealth.y"));
-        scorefont.drawString("2X", xCord, yCord, new DrawOptions().setBlendColour(new Colour(255, 215, 0)));
+        renderer.drawText(score.getFontSize(), "2X", playerHealth.getX() - 120, playerHealth.getY(), gold);
     }
 
     /**
      * Tells user that invincibility is active
      */
     public void invincibility() {
-        xCord = Double.parseDouble(game_props.getProperty("playerHealth.x")) - 220;
-        yCord = Double.parseDouble(game_props.getProperty("playerHealth.y"));
-        scorefont.drawString("INV", xCord, yCord, new DrawOptions().setBlendColour(Colour.BLUE));
+        renderer.drawText(score.getFontSize(), "INV", playerHealth.getX() - 220, playerHealth.getY(), blue);
     }
 
     /**
      * Tells user that the player and enemy boss are in range to shoot fireballs at each other
      */
     public void fight() {
-        xCord = setTextPos(msgFont, "FIGHT!");
-        yCord = Window.getHeight() * (1/3.0);
-        instructFont.drawString("FIGHT!", xCord, yCord, red);
+        xCord = fightX;
+        yCord = windowHeight * (1/3.0);
+        renderer.drawText(instruction.getFontSize(), "FIGHT!", xCord, yCord, red);
     }
 
     /**
      * Helper function for rendering instructions
      */
-    private double setTextPos(Font font, String msg) {
-        return ((Window.getWidth() - font.getWidth(msg))/ 2.0);
+    private double setTextPos(int fontSize, String msg) {
+        return ((windowWidth - renderer.getTextWidth(fontSize, msg))/ 2.0);
     }
 
 }
\ No newline at end of file
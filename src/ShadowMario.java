@@ -1,13 +1,33 @@
 import bagel.*;
-import java.util.Properties;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * @author Taiyo Siew-Adachi
  */
 public class ShadowMario extends AbstractGame {
-    private final Image BACKGROUND_IMAGE;
-    private final ScreenMessages screenMsg = new ScreenMessages();
+    private final GameConfig config;
+    private final Sprite BACKGROUND_IMAGE;
+    private final SpriteBatchRenderer renderer;
+    private final ScreenMessages screenMsg;
+    /* Draws the in play screen into the frames recorded by the simulation stage */
+    private final ScreenMessages playScreenMsg;
+    private final FramePipeline pipeline;
+    private final FramePipeline.Stage simulationStage = this::runFrame;
+    private final SimulationClock clock = new SimulationClock();
+    private final InputState inputState = new InputState();
+    private static final String RESOURCE_DIRECTORY = "res";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
     private World world;
+    private Replay replay;
+    private final FrameProfiler profiler = new FrameProfiler();
+    private final PerformanceOverlay overlay;
+    private final StaticLayer staticLayer;
+    private final Runnable drawStaticScreen = this::drawStaticScreen;
     private enum GameState {
         START,
         IN_PLAY,
@@ -15,7 +35,10 @@ public class ShadowMario extends AbstractGame {
         WON,
         LOST
     }
-    private GameState gamestate = GameState.START;
+    /* Changed by the simulation stage when the level is won or lost, which may run on its own thread */
+    private volatile GameState gamestate = GameState.START;
+    private volatile boolean levelFinished = false;
+    private volatile int lastSteps = 0;
     private enum Level {
         ONE,
         TWO,
@@ -26,134 +49,231 @@ public class ShadowMario extends AbstractGame {
     private final int WINDOW_HEIGHT;
 
     /**
-     * The constructor
+     * The constructor. Loads the texture atlas of the sprite images, so they are drawn in batches
+     * @param config The configuration of the game
      */
-    public ShadowMario(Properties game_props, Properties message_props) {
-        super(Integer.parseInt(game_props.getProperty("windowWidth")),
-                Integer.parseInt(game_props.getProperty("windowHeight")),
-                message_props.getProperty("title"));
+    public ShadowMario(GameConfig config) {
+        super(config.getWindowWidth(), config.getWindowHeight(), config.getTitleText());
 
-        BACKGROUND_IMAGE = new Image(game_props.getProperty("backgroundImage"));
-        WINDOW_HEIGHT = Integer.parseInt(game_props.getProperty("windowHeight"));
+        this.config = config;
+        BACKGROUND_IMAGE = TextureCache.acquire(config.getBackgroundImage());
+        TextureAtlas atlas = TextureAtlas.load(RESOURCE_DIRECTORY);
+        renderer = new SpriteBatchRenderer(atlas,
+                new LwjglBatchBackend(config.getWindowWidth(), config.getWindowHeight(),
+                        SpriteBatchRenderer.MAX_QUADS_PER_DRAW),
+                new BagelRenderer(config.getFont()));
+        screenMsg = new ScreenMessages(renderer, config);
+        pipeline = new FramePipeline(renderer);
+        playScreenMsg = new ScreenMessages(pipeline.getRenderer(), config);
+        overlay = new PerformanceOverlay(renderer, pipeline.getStageThreadId());
+        staticLayer = new StaticLayer(renderer, config.getWindowWidth(), config.getWindowHeight());
+        WINDOW_HEIGHT = config.getWindowHeight();
     }
 
     /**
      * The entry point for the program.
      */
     public static void main(String[] args) {
-        Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
-        Properties message_props = IOUtils.readPropertiesFile("res/message_en.properties");
+        GameConfig config = GameConfig.load("res/app.properties", "res/message_en.properties");
 
-        ShadowMario game = new ShadowMario(game_props, message_props);
+        ShadowMario game = new ShadowMario(config);
         game.run();
     }
 
     /**
      * Performs a state update.
-     * Allows the game to exit when the escape key is pressed.
+     * Allows the game to exit when the escape key is pressed. While a level is in play, the input is handed to the
+     * simulation stage, which runs on its own thread when there are cores to spare, and the newest frame it has
+     * recorded is drawn. Menus are handled and drawn here. Each stage is timed by the frame profiler
      * @param input, the key input from the user
      */
     @Override
     protected void update(Input input) {
-        BACKGROUND_IMAGE.draw(Window.getWidth()/2.0, Window.getHeight()/2.0);
-
+        GameEvents.Frame event = new GameEvents.Frame();
+        event.begin();
+        long frameStart = profiler.start();
         if (input.wasPressed(Keys.ESCAPE)){ // close window
             Window.close();
         }
-        /* Game is in play, display score/health, draw entities, read inputs and process */
-        if (gamestate == GameState.IN_PLAY) {
-            /* Update world for new frame, for things to happen regardless of key inputs */
-            world.updateWorld();
+        if (input.wasPressed(Keys.F3)) { // debug performance overlay
+            overlay.toggle();
+        }
+        BagelInput.latch(input, inputState);
+        long renderStart = profiler.record(FrameProfiler.Phase.INPUT, frameStart);
+        pipeline.submit(inputState);
+        inputState.clearPresses(); // presses are handed over once
+        render();
+        long renderEnd = System.nanoTime();
+        overlay.draw(gamestate == GameState.IN_PLAY || gamestate == GameState.NO_HEALTH ?
+                pipeline.getDrawnCounters() : null, renderEnd);
+        renderer.endFrame();
 
-            if (input.isDown(Keys.RIGHT) || input.wasPressed(Keys.RIGHT)) {
-                world.moveRight(); // world moves against player perspective to the left
-            }
-            if (input.isDown(Keys.LEFT) || input.wasPressed(Keys.LEFT)) {
-                world.moveLeft(); // world moves against player perspective to the right
-            }
-            if (player.getIsJumping()) { // jumping or fell off flying platform
-                player.isMidAir();
-            }
-            else if (input.isDown(Keys.UP) || input.wasPressed(Keys.UP)) {
-                if (!player.getIsJumping()) {
-                    player.jump();
+        /* Not taking any player movement inputs, menus respond immediately */
+        if (gamestate == GameState.START) {
+            if (input.wasPressed(Keys.NUM_1) || input.wasPressed(Keys.NUM_2) || input.wasPressed(Keys.NUM_3)) {
+                if (input.wasPressed(Keys.NUM_1)) {
+                    level = Level.ONE;
                 }
-            }
-            /* Player shoots fireball if in range of shooting the enemy boss */
-            if (input.wasPressed(Keys.S)) {
-                if (level == Level.THREE){ //&& world.getEnemyBoss().inFireballRange(player)) {
-                    world.newFireball(player.shootFireball());
+                else if (input.wasPressed(Keys.NUM_2)) {
+                    level = Level.TWO;
+                }
+                else if (input.wasPressed(Keys.NUM_3)) {
+                    level = Level.THREE;
                 }
+                newGame();
+                inputState.clearPresses();
+                gamestate = GameState.IN_PLAY;
+                pipeline.setStage(simulationStage);
+            }
+        }
+        if (input.wasPressed(Keys.SPACE)) {
+            if (gamestate == GameState.WON || gamestate == GameState.LOST) {
+                pipeline.setStage(null);
+                gamestate = GameState.START;
+            }
+        }
+        if (levelFinished) {
+            /* Pause the simulation while its replay and profile are saved, carrying on for the losing animation */
+            levelFinished = false;
+            pipeline.setStage(null);
+            finishLevel();
+            if (gamestate == GameState.NO_HEALTH) {
+                pipeline.setStage(simulationStage);
             }
+        }
+        long frameEnd = profiler.record(FrameProfiler.Phase.FRAME, frameStart);
+        overlay.recordFrame(frameEnd - frameStart, pipeline.getLastStageNanos(), renderEnd - renderStart);
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameState = gamestate.name();
+            event.level = level == null ? 0 : level.ordinal() + 1;
+            event.simulationSteps = lastSteps;
+            event.commit();
+        }
+    }
+
+    /**
+     * The simulation stage of a frame. The simulation runs in fixed length steps, as many as the real time since the
+     * last frame allows, and the world and in play screen are then drawn between the last two steps. The counts of
+     * the world are copied for the performance overlay, which is drawn on the Bagel thread
+     * @param inputState The keys handed over for the frame
+     * @param frame The renderer to record the frame with
+     * @param counters The counts of the world handed over with the frame
+     */
+    private void runFrame(InputState inputState, Renderer frame, WorldCounters counters) {
+        long time = profiler.start();
+        int steps = clock.advance(System.nanoTime());
+        for (int i = 0; i < steps; i++) {
+            simulate(inputState);
+            inputState.clearPresses(); // presses are only seen by the first step after them
+            time = profiler.record(FrameProfiler.Phase.STEP, time);
+        }
+        lastSteps = steps;
+        world.drawWorld(frame, clock.getAlpha());
+        time = profiler.record(FrameProfiler.Phase.DRAW_WORLD, time);
+        playScreenMsg.inPlayScreen(player, world.getEnemyBoss());
+        profiler.record(FrameProfiler.Phase.SCREEN_MESSAGES, time);
+        counters.capture(world);
+    }
+
+    /**
+     * Runs one fixed length simulation step of the game, reading the latched inputs and processing them
+     * @param inputState The keys latched for the step
+     */
+    private void simulate(InputState inputState) {
+        /* Game is in play, read inputs and process */
+        if (gamestate == GameState.IN_PLAY) {
+            replay.record(inputState);
+            world.step(inputState);
 
             /* Lose condition */
             if (!player.isAlive()) {
                 player.noHealth();
                 gamestate = GameState.NO_HEALTH;
+                levelFinished = true;
             }
             /* Win condition */
             if (world.getEndFlag().getCollided()) {
                 gamestate = GameState.WON;
+                levelFinished = true;
             }
-
-            /* Done reading inputs and checking collisions. Now, draw the entities onto background image */
-            world.drawWorld();
-            screenMsg.inPlayScreen(player.getScore(), player.getHealth(), world.getEnemyBoss());
         }
-        else { // not taking any player movement inputs
-            if (gamestate == GameState.NO_HEALTH) {
-                player.noHealth();
-                if (player.getY() > WINDOW_HEIGHT) { // losing animation is finished
-                    gamestate = GameState.LOST;
-                }
-                else { // play losing animation
-                    world.drawWorld();
-                    screenMsg.inPlayScreen(player.getScore(), player.getHealth(), world.getEnemyBoss());
-                }
-            }
-            else if (gamestate == GameState.START) {
-                screenMsg.startScreen();
-                if (input.wasPressed(Keys.NUM_1) || input.wasPressed(Keys.NUM_2) || input.wasPressed(Keys.NUM_3)) {
-                    if (input.wasPressed(Keys.NUM_1)) {
-                        level = Level.ONE;
-                    }
-                    else if (input.wasPressed(Keys.NUM_2)) {
-                        level = Level.TWO;
-                    }
-                    else if (input.wasPressed(Keys.NUM_3)) {
-                        level = Level.THREE;
-                    }
-                    newGame();
-                    gamestate = GameState.IN_PLAY;
-                }
-            }
-            else if (gamestate == GameState.WON) {
-                screenMsg.winScreen();
-            }
-            else if (gamestate == GameState.LOST) {
-                screenMsg.loseScreen();
-            }
-            if (input.wasPressed(Keys.SPACE)) {
-                if (gamestate == GameState.WON || gamestate == GameState.LOST) {
-                    gamestate = GameState.START;
-                }
+        else if (gamestate == GameState.NO_HEALTH) {
+            world.stepLosingAnimation();
+            if (player.getY() > WINDOW_HEIGHT) { // losing animation is finished
+                gamestate = GameState.LOST;
             }
         }
     }
 
     /**
-     * Resets the world for a new game according to the level chosen
+     * Draws the current frame for the game state
      */
-    private void newGame() {
-        if (level == Level.ONE) {
-            world = new World1(IOUtils.readPropertiesFile("res/app.properties").getProperty("level1File"));
+    private void render() {
+        GameState state = gamestate;
+        boolean inPlay = state == GameState.IN_PLAY || state == GameState.NO_HEALTH;
+        /* The background and menu text only change with the game state, so are drawn from the static layer */
+        staticLayer.draw(inPlay ? GameState.IN_PLAY.ordinal() : state.ordinal(), drawStaticScreen);
+        /* Game is in play or playing the losing animation, draw the frame recorded by the simulation onto the
+           background image */
+        if (inPlay) {
+            long time = profiler.start();
+            pipeline.drawLatest(renderer);
+            profiler.record(FrameProfiler.Phase.DRAW_LIST, time);
         }
-        if (level == Level.TWO) {
-            world = new World2(IOUtils.readPropertiesFile("res/app.properties").getProperty("level2File"));
+    }
+
+    /**
+     * Draws the parts of the frame that only change with the game state: the background, and the text of the menus
+     */
+    private void drawStaticScreen() {
+        renderer.drawSprite(BACKGROUND_IMAGE, Window.getWidth()/2.0, Window.getHeight()/2.0);
+        if (gamestate == GameState.START) {
+            screenMsg.startScreen();
         }
-        if (level == Level.THREE) {
-            world = new World3(IOUtils.readPropertiesFile("res/app.properties").getProperty("level3File"));
+        else if (gamestate == GameState.WON) {
+            screenMsg.winScreen();
         }
+        else if (gamestate == GameState.LOST) {
+            screenMsg.loseScreen();
+        }
+    }
+
+    /**
+     * Resets the world for a new game according to the level chosen, with the simulation stage stopped
+     */
+    private void newGame() {
+        pipeline.setStage(null);
+        clock.reset();
+        if (world != null) {
+            world.dispose();
+        }
+        long seed = WorldRandom.newSeed();
+        world = World.newWorld(level.ordinal() + 1, config, seed);
+        world.setStreamInBackground(true);
         player = world.getPlayer();
+        replay = new Replay(level.ordinal() + 1, seed);
+        profiler.reset();
+        world.setProfiler(profiler);
+    }
+
+    /**
+     * Saves the replay of the level that just ended to the replay directory, so it can be run again with
+     * ReplayRunner, and the frame profile of the level to the profile directory as csv and json. The game carries
+     * on if they cannot be saved
+     */
+    private void finishLevel() {
+        replay.finish(player);
+        String name = "level" + replay.getLevel() + "-" + FILE_TIME.format(LocalDateTime.now());
+        Path replayFile = Paths.get(config.getReplayDirectory(), name + ".replay");
+        Path profileFile = Paths.get(config.getProfileDirectory(), name);
+        try {
+            replay.write(replayFile);
+            profiler.writeCsv(Paths.get(profileFile + ".csv"));
+            profiler.writeJson(Paths.get(profileFile + ".json"), replay.getLevel(), replay.getSeed());
+        }
+        catch (IOException e) {
+            System.err.println("Could not save the replay and profile of " + name + ": " + e.getMessage());
+        }
     }
 }
@@ -4,8 +4,9 @@
  */
 public interface ShootsFireballs {
     /**
-     * Shoots a fireball, creates a new fireball object
+     * Shoots a fireball, taking it from the world's projectiles
+     * @param projectiles The projectiles of the world the fireball is shot in
      * @return The fireball object that was shot
      */
-    Fireball shootFireball();
+    Fireball shootFireball(Projectiles projectiles);
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+/**
+ * Fixed timestep clock that decides how many simulation steps to run for each rendered frame. Real time is
+ * accumulated between frames and spent in steps of a fixed length, so the speed of the game does not depend on the
+ * refresh rate of the display
+ * @author Taiyo Siew-Adachi
+ */
+public class SimulationClock {
+    /** The number of simulation steps per second of real time */
+    public static final int STEPS_PER_SECOND = 60;
+    private static final long STEP_NANOS = 1_000_000_000L / STEPS_PER_SECOND;
+    /* Upper bound on steps in one frame, so a long stall does not freeze the game while it catches up */
+    private static final int MAX_STEPS_PER_FRAME = 5;
+    private long lastTime;
+    private long accumulator = 0;
+    private boolean started = false;
+
+    /**
+     * Adds the real time passed since the last frame to the clock
+     * @param now The current time in nanoseconds, from System.nanoTime()
+     * @return The number of simulation steps that should be run before rendering this frame
+     */
+    public int advance(long now) {
+        if (!started) {
+            started = true;
+            lastTime = now;
+            return 1;
+        }
+        accumulator += now - lastTime;
+        lastTime = now;
+        int steps = (int) (accumulator / STEP_NANOS);
+        if (steps > MAX_STEPS_PER_FRAME) {
+            steps = MAX_STEPS_PER_FRAME;
+            accumulator = 0; // drop the rest of the backlog instead of spiralling further behind
+        }
+        else {
+            accumulator -= steps * STEP_NANOS;
+        }
+        return steps;
+    }
+
+    /**
+     * Starts the clock again, so the time before this is not caught up on
+     */
+    public void reset() {
+        started = false;
+        accumulator = 0;
+    }
+
+    /**
+     * Retrieves how far the current frame is between the last simulation step and the next one
+     * @return The interpolation fraction, from 0 up to 1
+     */
+    public double getAlpha() {
+        return Math.min(1.0, accumulator / (double) STEP_NANOS);
+    }
+}
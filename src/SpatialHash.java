@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Uniform grid broadphase keyed on x and y co-ords. Items are bucketed into square cells so that a query only has to
+ * look at the cells overlapping the queried area, instead of every item in the world
+ * @param <T> The type of item stored in the grid
+ * @author Taiyo Siew-Adachi
+ */
+public class SpatialHash<T> {
+    private static final int INITIAL_CAPACITY = 64;
+    private final double cellSize;
+    private final HashMap<T, Cell<T>> cellOf = new HashMap<>();
+    /* Open addressing table from cell key to cell, so that lookups on the frame path do not box keys */
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Cell<?>[] cells = new Cell<?>[INITIAL_CAPACITY];
+    private int cellCount = 0;
+
+    /**
+     * Constructs an empty grid
+     * @param cellSize The width and height of each cell
+     */
+    public SpatialHash(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds an item to the cell containing the given co-ords
+     * @param item The item to be added
+     * @param x The x co-ord of the item
+     * @param y The y co-ord of the item
+     */
+    public void insert(T item, double x, double y) {
+        Cell<T> cell = getOrCreateCell(cellKey(cellIndex(x), cellIndex(y)));
+        cell.items.add(item);
+        cellOf.put(item, cell);
+    }
+
+    /**
+     * Moves an item to a new cell, only if it has crossed a cell boundary since it was last inserted or updated
+     * @param item The item that moved
+     * @param x The new x co-ord of the item
+     * @param y The new y co-ord of the item
+     */
+    public void update(T item, double x, double y) {
+        Cell<T> current = cellOf.get(item);
+        if (current == null) {
+            return;
+        }
+        long key = cellKey(cellIndex(x), cellIndex(y));
+        if (current.key != key) {
+            current.items.remove(item);
+            Cell<T> next = getOrCreateCell(key);
+            next.items.add(item);
+            cellOf.put(item, next);
+        }
+    }
+
+    /**
+     * Removes an item from the grid
+     * @param item The item to be removed
+     */
+    public void remove(T item) {
+        Cell<T> cell = cellOf.remove(item);
+        if (cell != null) {
+            cell.items.remove(item);
+        }
+    }
+
+    /**
+     * Checks whether an item is stored in the grid
+     * @param item The item to look for
+     * @return true if the item is in the grid, false otherwise
+     */
+    public boolean contains(T item) {
+        return cellOf.containsKey(item);
+    }
+
+    /**
+     * Collects every item in the cells overlapping the given rectangle. Items near the edges of the rectangle may be
+     * returned even if they lie just outside it, so callers still run their own exact check
+     * @param minX The left edge of the area
+     * @param minY The top edge of the area
+     * @param maxX The right edge of the area
+     * @param maxY The bottom edge of the area
+     * @param out The list the items are added to
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<T> out) {
+        int minCellX = cellIndex(minX);
+        int maxCellX = cellIndex(maxX);
+        int minCellY = cellIndex(minY);
+        int maxCellY = cellIndex(maxY);
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                Cell<T> cell = findCell(cellKey(cellX, cellY));
+                if (cell != null) {
+                    for (int i = 0; i < cell.items.size(); i++) { // addAll would copy the cell into a new array
+                        out.add(cell.items.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of items stored in the grid
+     * @return The number of items
+     */
+    public int size() {
+        return cellOf.size();
+    }
+
+    /**
+     * Converts a co-ord into the index of the cell containing it
+     */
+    private int cellIndex(double coord) {
+        return (int) Math.floor(coord / cellSize);
+    }
+
+    /**
+     * Packs the two cell indices into a single key
+     */
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    /**
+     * Finds the slot of a key in the table, or the empty slot it would be placed in
+     */
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (cells[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cell<T> findCell(long key) {
+        return (Cell<T>) cells[slotOf(key)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cell<T> getOrCreateCell(long key) {
+        int slot = slotOf(key);
+        if (cells[slot] != null) {
+            return (Cell<T>) cells[slot];
+        }
+        Cell<T> cell = new Cell<>(key);
+        keys[slot] = key;
+        cells[slot] = cell;
+        if (++cellCount * 2 > keys.length) {
+            grow();
+        }
+        return cell;
+    }
+
+    /**
+     * Doubles the size of the table once it is half full, to keep probe sequences short
+     */
+    private void grow() {
+        Cell<?>[] oldCells = cells;
+        keys = new long[oldCells.length * 2];
+        cells = new Cell<?>[oldCells.length * 2];
+        for (Cell<?> cell: oldCells) {
+            if (cell != null) {
+                int slot = slotOf(cell.key);
+                keys[slot] = cell.key;
+                cells[slot] = cell;
+            }
+        }
+    }
+
+    /**
+     * A single cell of the grid and the items currently inside it
+     */
+    private static final class Cell<T> {
+        private final long key;
+        private final ArrayList<T> items = new ArrayList<>();
+
+        private Cell(long key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import bagel.Image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Represents the image file an entity is drawn with. The Bagel image is only loaded the first time a renderer asks
+ * for it, so entities can be constructed without a window when running headless. Sprites are shared between entities
+ * through the TextureCache
+ * @author Taiyo Siew-Adachi
+ */
+public class Sprite {
+    private final String file;
+    private Image image;
+    private long bytesLoaded = 0;
+    /* Read from the image file's header on first use, so it is known without a window */
+    private int width = 0;
+
+    /**
+     * Constructs a sprite for an image file, without loading it
+     * @param file The path to the image file
+     */
+    public Sprite(String file) {
+        this.file = file;
+    }
+
+    /**
+     * Retrieves the path to the image file of the sprite
+     * @return The path to the image file
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Retrieves the width of the image, reading only the header of the image file
+     * @return The width in pixels
+     * @throws UncheckedIOException if the image file cannot be read
+     */
+    public int getWidth() {
+        if (width == 0) {
+            width = readWidth();
+        }
+        return width;
+    }
+
+    /**
+     * Reads the width of the image from the header of its file
+     */
+    private int readWidth() {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new File(file))) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException(file + " is not an image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return reader.getWidth(0);
+            }
+            finally {
+                reader.dispose();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not read the size of " + file, e);
+        }
+    }
+
+    /**
+     * Retrieves the Bagel image of the sprite, loading it on first use. Needs a live window
+     * @return The Bagel image
+     */
+    public Image getImage() {
+        if (image == null) {
+            image = new Image(file);
+            bytesLoaded = (long) (image.getWidth() * image.getHeight()) * 4;
+        }
+        return image;
+    }
+
+    /**
+     * Drops the loaded image, so it is loaded again if the sprite is drawn after this
+     */
+    public void unload() {
+        image = null;
+        bytesLoaded = 0;
+    }
+
+    /**
+     * Retrieves the estimated memory of the loaded image, four bytes per pixel
+     * @return The number of bytes of image data, 0 if the image is not loaded
+     */
+    public long getBytesLoaded() {
+        return bytesLoaded;
+    }
+}
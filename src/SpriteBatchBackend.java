@@ -0,0 +1,61 @@
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * The graphics calls made by the batched sprite renderer, so the batching can run and be counted without a GPU
+ * @author Taiyo Siew-Adachi
+ */
+public interface SpriteBatchBackend {
+    /** The number of floats per quad: four corners, each an x and y co-ord on screen and a texture co-ord */
+    int FLOATS_PER_QUAD = 16;
+
+    /**
+     * Uploads a texture
+     * @param width The width of the texture in pixels
+     * @param height The height of the texture in pixels
+     * @param rgba The pixels, four bytes per pixel in RGBA order, row by row from the top
+     * @return The handle of the texture, to draw with
+     */
+    int createTexture(int width, int height, ByteBuffer rgba);
+
+    /**
+     * Creates an offscreen target to draw into, along with the texture it is drawn into
+     * @param width The width of the target in pixels
+     * @param height The height of the target in pixels
+     * @return The handle of the target's texture, to draw what was drawn into it with. Targets are drawn opaque
+     */
+    int createTarget(int width, int height);
+
+    /**
+     * Clears a target and draws everything after this into it, including what is drawn by other renderers, until
+     * endTarget is called
+     * @param texture The handle of the target's texture
+     */
+    void beginTarget(int texture);
+
+    /**
+     * Goes back to drawing into the window after drawing into a target
+     */
+    void endTarget();
+
+    /**
+     * Draws quads textured from one texture in a single draw call. The corners of each quad are given in the order
+     * top left, top right, bottom right, bottom left
+     * @param texture The handle of the texture
+     * @param vertices The corners of the quads, FLOATS_PER_QUAD floats for each, from position 0
+     * @param quadCount The number of quads
+     */
+    void drawQuads(int texture, FloatBuffer vertices, int quadCount);
+
+    /**
+     * Marks the end of a frame, after its last draw. State the backend read at the first draw of the frame is read
+     * again at the first draw of the next
+     */
+    default void endFrame() {
+    }
+
+    /**
+     * Releases the textures and buffers of the backend
+     */
+    void dispose();
+}
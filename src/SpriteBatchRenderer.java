@@ -0,0 +1,233 @@
+import bagel.DrawOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Renderer that queues sprites packed into a texture atlas and draws them in batches, one draw call per atlas page
+ * per layer rather than one per sprite. Queued sprites are sorted by layer and then atlas page before drawing, and
+ * keep the order they were queued in otherwise. Text and sprites that are not in the atlas are drawn through a
+ * fallback renderer, after drawing whatever is queued so they stay over the sprites drawn before them
+ * @author Taiyo Siew-Adachi
+ */
+public class SpriteBatchRenderer implements Renderer {
+    /* Quads per draw call, so the indices of the corners fit in an unsigned short */
+    public static final int MAX_QUADS_PER_DRAW = 16384;
+    private static final int INITIAL_QUEUE_SIZE = 256;
+    private static final int LAYER_SHIFT = 48;
+    private static final int PAGE_SHIFT = 32;
+    private static final int MAX_LAYER = 0xFFFF;
+    private final TextureAtlas atlas;
+    private final SpriteBatchBackend backend;
+    private final Renderer fallback;
+    private final int[] pageTextures;
+    private final FloatBuffer vertices = ByteBuffer
+            .allocateDirect(MAX_QUADS_PER_DRAW * SpriteBatchBackend.FLOATS_PER_QUAD * Float.BYTES)
+            .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    /* The queued sprites. Each key holds the layer, the atlas page and the place in the queue, so sorting the keys
+       sorts the queue without moving the sprites */
+    private long[] keys = new long[INITIAL_QUEUE_SIZE];
+    private TextureAtlas.Region[] queuedRegions = new TextureAtlas.Region[INITIAL_QUEUE_SIZE];
+    private float[] queuedX = new float[INITIAL_QUEUE_SIZE];
+    private float[] queuedY = new float[INITIAL_QUEUE_SIZE];
+    private int queued = 0;
+    /* The offscreen targets, by the handle given out for them */
+    private int[] targetTextures = new int[0];
+    private int[] targetWidths = new int[0];
+    private int[] targetHeights = new int[0];
+    private int layer = 0;
+    private int drawCalls = 0;
+    private int batchedSprites = 0;
+    private int lastFrameDrawCalls = 0;
+    private int lastFrameBatchedSprites = 0;
+
+    /**
+     * Constructs a batched renderer, uploading each page of the atlas as a texture
+     * @param atlas The atlas of the sprites to draw in batches
+     * @param backend The backend the batches are drawn with
+     * @param fallback The renderer for text and for sprites not in the atlas
+     */
+    public SpriteBatchRenderer(TextureAtlas atlas, SpriteBatchBackend backend, Renderer fallback) {
+        this.atlas = atlas;
+        this.backend = backend;
+        this.fallback = fallback;
+        pageTextures = new int[atlas.getPageCount()];
+        for (int page = 0; page < pageTextures.length; page++) {
+            pageTextures[page] = backend.createTexture(atlas.getPageSize(), atlas.getPageSize(),
+                    atlas.getPagePixels(page));
+        }
+    }
+
+    @Override
+    public void drawSprite(Sprite sprite, double x, double y) {
+        TextureAtlas.Region region = atlas.find(sprite.getFile());
+        if (region == null) {
+            flush();
+            fallback.drawSprite(sprite, x, y);
+            drawCalls++;
+            return;
+        }
+        if (queued == keys.length) {
+            int size = queued * 2;
+            keys = Arrays.copyOf(keys, size);
+            queuedRegions = Arrays.copyOf(queuedRegions, size);
+            queuedX = Arrays.copyOf(queuedX, size);
+            queuedY = Arrays.copyOf(queuedY, size);
+        }
+        keys[queued] = ((long) layer << LAYER_SHIFT) | ((long) region.getPage() << PAGE_SHIFT) | queued;
+        queuedRegions[queued] = region;
+        queuedX[queued] = (float) x;
+        queuedY[queued] = (float) y;
+        queued++;
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y) {
+        flush();
+        fallback.drawText(fontSize, text, x, y);
+        drawCalls++;
+    }
+
+    @Override
+    public void drawText(int fontSize, String text, double x, double y, DrawOptions options) {
+        flush();
+        fallback.drawText(fontSize, text, x, y, options);
+        drawCalls++;
+    }
+
+    @Override
+    public double getTextWidth(int fontSize, String text) {
+        return fallback.getTextWidth(fontSize, text);
+    }
+
+    @Override
+    public void setLayer(int layer) {
+        this.layer = Math.max(0, Math.min(layer, MAX_LAYER));
+    }
+
+    @Override
+    public int createTarget(int width, int height) {
+        int target = targetTextures.length;
+        targetTextures = Arrays.copyOf(targetTextures, target + 1);
+        targetWidths = Arrays.copyOf(targetWidths, target + 1);
+        targetHeights = Arrays.copyOf(targetHeights, target + 1);
+        targetTextures[target] = backend.createTarget(width, height);
+        targetWidths[target] = width;
+        targetHeights[target] = height;
+        return target;
+    }
+
+    @Override
+    public void beginTarget(int target) {
+        flush();
+        backend.beginTarget(targetTextures[target]);
+    }
+
+    @Override
+    public void endTarget() {
+        flush();
+        backend.endTarget();
+    }
+
+    @Override
+    public void drawTarget(int target) {
+        flush();
+        float right = targetWidths[target];
+        float bottom = targetHeights[target];
+        /* Targets are drawn into upside down, with their first row at the bottom of the window */
+        vertices.put(0).put(0).put(0).put(1);
+        vertices.put(right).put(0).put(1).put(1);
+        vertices.put(right).put(bottom).put(1).put(0);
+        vertices.put(0).put(bottom).put(0).put(0);
+        drawBatch(targetTextures[target], 1);
+    }
+
+    @Override
+    public void endFrame() {
+        flush();
+        backend.endFrame();
+        lastFrameDrawCalls = drawCalls;
+        lastFrameBatchedSprites = batchedSprites;
+        drawCalls = 0;
+        batchedSprites = 0;
+        layer = 0;
+    }
+
+    /**
+     * Draws the queued sprites, in as few draw calls as the layers and atlas pages they are on allow
+     */
+    private void flush() {
+        if (queued == 0) {
+            return;
+        }
+        Arrays.sort(keys, 0, queued);
+        int page = -1;
+        int quads = 0;
+        for (int i = 0; i < queued; i++) {
+            int index = (int) keys[i];
+            TextureAtlas.Region region = queuedRegions[index];
+            if (region.getPage() != page || quads == MAX_QUADS_PER_DRAW) {
+                drawPage(page, quads);
+                page = region.getPage();
+                quads = 0;
+            }
+            float left = queuedX[index] - region.getWidth() / 2.0f;
+            float top = queuedY[index] - region.getHeight() / 2.0f;
+            float right = left + region.getWidth();
+            float bottom = top + region.getHeight();
+            vertices.put(left).put(top).put(region.getU0()).put(region.getV0());
+            vertices.put(right).put(top).put(region.getU1()).put(region.getV0());
+            vertices.put(right).put(bottom).put(region.getU1()).put(region.getV1());
+            vertices.put(left).put(bottom).put(region.getU0()).put(region.getV1());
+            quads++;
+            queuedRegions[index] = null;
+        }
+        drawPage(page, quads);
+        batchedSprites += queued;
+        queued = 0;
+    }
+
+    /**
+     * Draws the quads written to the vertex buffer from an atlas page, then empties it
+     */
+    private void drawPage(int page, int quads) {
+        if (quads > 0) {
+            drawBatch(pageTextures[page], quads);
+        }
+    }
+
+    /**
+     * Draws the quads written to the vertex buffer from a texture, then empties it
+     */
+    private void drawBatch(int texture, int quads) {
+        vertices.flip();
+        backend.drawQuads(texture, vertices, quads);
+        vertices.clear();
+        drawCalls++;
+    }
+
+    /**
+     * Releases the textures of the atlas and the offscreen targets
+     */
+    public void dispose() {
+        backend.dispose();
+    }
+
+    /**
+     * Retrieves the number of draw calls made in the last frame, counting each text and each sprite drawn through the
+     * fallback renderer as one
+     * @return The number of draw calls
+     */
+    public int getLastFrameDrawCalls() {
+        return lastFrameDrawCalls;
+    }
+
+    /**
+     * Retrieves the number of sprites drawn in batches in the last frame
+     * @return The number of sprites
+     */
+    public int getLastFrameBatchedSprites() {
+        return lastFrameBatchedSprites;
+    }
+}
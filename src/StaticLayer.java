@@ -0,0 +1,43 @@
+/**
+ * A layer at the back of the screen that only changes now and then, such as the background and the text of the
+ * menus. It is drawn once into an offscreen target and then drawn from the target as a single image each frame, until
+ * what is in it changes. With renderers that cannot draw offscreen, it is drawn in full every frame
+ * @author Taiyo Siew-Adachi
+ */
+public class StaticLayer {
+    private final Renderer renderer;
+    private final int target;
+    private boolean drawn = false;
+    private int contents;
+
+    /**
+     * Constructs a layer covering the window
+     * @param renderer The renderer to draw the layer with
+     * @param width The width of the window in pixels
+     * @param height The height of the window in pixels
+     */
+    public StaticLayer(Renderer renderer, int width, int height) {
+        this.renderer = renderer;
+        target = renderer.createTarget(width, height);
+    }
+
+    /**
+     * Draws the layer, drawing its contents into the target first if they have changed since it was last drawn
+     * @param contents A number standing for what is in the layer, which changes whenever what is drawn changes
+     * @param draw Draws what is in the layer
+     */
+    public void draw(int contents, Runnable draw) {
+        if (target == Renderer.NO_TARGET) {
+            draw.run();
+            return;
+        }
+        if (!drawn || contents != this.contents) {
+            renderer.beginTarget(target);
+            draw.run();
+            renderer.endTarget();
+            this.contents = contents;
+            drawn = true;
+        }
+        renderer.drawTarget(target);
+    }
+}
@@ -0,0 +1,418 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The sprite images of the game packed into a few large square pages, so the batched renderer can draw every sprite
+ * on a page in a single draw call. Images are packed onto shelves, tallest first, with a pixel of padding around each
+ * so neighbouring images do not bleed into each other. Images too large to fit on a page are left out and drawn on
+ * their own. The atlas is packed by the build into pages and a manifest next to the images (see AtlasCompiler), and
+ * packed at startup only if those are missing or out of date
+ * @author Taiyo Siew-Adachi
+ */
+public class TextureAtlas {
+    /** The width and height of an atlas page, small enough for any OpenGL 3.3 driver */
+    public static final int DEFAULT_PAGE_SIZE = 2048;
+    private static final int PADDING = 1;
+    private static final int BYTES_PER_PIXEL = 4;
+    private final int pageSize;
+    /* The pixels of each page, four bytes per pixel in RGBA order, row by row from the top */
+    private final ArrayList<ByteBuffer> pages = new ArrayList<>();
+    /* The number of rows from the top of each page that images are packed into, the rest are empty */
+    private final ArrayList<Integer> usedHeights = new ArrayList<>();
+    private final HashMap<String, Region> regions = new HashMap<>();
+
+    private TextureAtlas(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Loads the atlas of the images in a directory, from the atlas packed by the build if it is up to date with the
+     * images, otherwise by packing the images
+     * @param directory The path to the directory of images
+     * @return The atlas, with the images looked up by the directory followed by the file name
+     * @throws UncheckedIOException if the images cannot be read
+     */
+    public static TextureAtlas load(String directory) {
+        try {
+            List<String> files = listImages(directory);
+            if (Files.isRegularFile(Paths.get(AtlasCompiler.manifestPath(directory)))) {
+                TextureAtlas atlas = readCompiled(directory, AtlasCompiler.checksum(files));
+                if (atlas != null) {
+                    return atlas;
+                }
+            }
+            return pack(files, DEFAULT_PAGE_SIZE);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not load the images in " + directory, e);
+        }
+    }
+
+    /**
+     * Reads the atlas packed by the build
+     * @param directory The path to the directory of images the atlas was packed from
+     * @param expectedChecksum The checksum of the images the atlas should have been packed from, or -1 to accept any
+     * @return The atlas, or null if the manifest is not of this version or the atlas is out of date
+     * @throws IOException if the manifest or a page cannot be read
+     */
+    public static TextureAtlas readCompiled(String directory, long expectedChecksum) throws IOException {
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(Paths.get(AtlasCompiler.manifestPath(directory)))) {
+            manifest.load(in);
+        }
+        if (!String.valueOf(AtlasCompiler.VERSION).equals(manifest.getProperty(AtlasCompiler.VERSION_KEY))) {
+            return null;
+        }
+        long checksum = Long.parseLong(manifest.getProperty(AtlasCompiler.CHECKSUM_KEY, "-1"));
+        if (expectedChecksum != -1 && checksum != expectedChecksum) {
+            return null;
+        }
+        TextureAtlas atlas = new TextureAtlas(Integer.parseInt(manifest.getProperty(AtlasCompiler.PAGE_SIZE_KEY)));
+        int pageCount = Integer.parseInt(manifest.getProperty(AtlasCompiler.PAGES_KEY));
+        for (int page = 0; page < pageCount; page++) {
+            Path pageFile = Paths.get(AtlasCompiler.pagePath(directory, page));
+            BufferedImage image = ImageIO.read(pageFile.toFile());
+            if (image == null || image.getWidth() != atlas.pageSize || image.getHeight() > atlas.pageSize) {
+                throw new IOException(pageFile + " is not an atlas page");
+            }
+            atlas.addPage();
+            atlas.usedHeights.set(page, image.getHeight());
+            if (image.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
+                /* Saved pages decode to ABGR bytes, which are reordered a row at a time rather than per pixel */
+                byte[] abgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                ByteBuffer pixels = atlas.pages.get(page).duplicate();
+                byte[] row = new byte[atlas.pageSize * BYTES_PER_PIXEL];
+                for (int y = 0; y < image.getHeight(); y++) {
+                    int offset = y * row.length;
+                    for (int i = 0; i < row.length; i += BYTES_PER_PIXEL) {
+                        row[i] = abgr[offset + i + 3];
+                        row[i + 1] = abgr[offset + i + 2];
+                        row[i + 2] = abgr[offset + i + 1];
+                        row[i + 3] = abgr[offset + i];
+                    }
+                    pixels.put(row);
+                }
+            }
+            else {
+                atlas.copy(image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()),
+                        image.getWidth(), image.getHeight(), page, 0, 0);
+            }
+        }
+        for (String key: manifest.stringPropertyNames()) {
+            if (!key.startsWith(AtlasCompiler.REGION_PREFIX)) {
+                continue;
+            }
+            String[] values = manifest.getProperty(key).split(",");
+            if (values.length != 5) {
+                throw new IOException("Malformed atlas region " + key);
+            }
+            String file = directory + "/" + key.substring(AtlasCompiler.REGION_PREFIX.length());
+            atlas.regions.put(file, new Region(Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim()),
+                    Integer.parseInt(values[2].trim()), Integer.parseInt(values[3].trim()),
+                    Integer.parseInt(values[4].trim()), atlas.pageSize));
+        }
+        return atlas;
+    }
+
+    /**
+     * Lists the png images in a directory, in name order
+     * @param directory The path to the directory
+     * @return The paths to the images, written as the directory followed by the file name
+     */
+    public static List<String> listImages(String directory) {
+        String[] names = new File(directory).list((dir, name) -> name.endsWith(".png"));
+        ArrayList<String> files = new ArrayList<>();
+        if (names != null) {
+            Arrays.sort(names);
+            for (String name: names) {
+                files.add(directory + "/" + name);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Reads the given images and packs them into pages
+     * @param files The paths to the images, which the packed images are looked up by
+     * @param pageSize The width and height of each page
+     * @return The packed atlas
+     * @throws IOException if an image cannot be read
+     */
+    public static TextureAtlas pack(List<String> files, int pageSize) throws IOException {
+        ArrayList<Image> images = new ArrayList<>();
+        for (String file: files) {
+            BufferedImage image = ImageIO.read(new File(file));
+            if (image == null) {
+                throw new IOException(file + " is not an image");
+            }
+            images.add(new Image(file, image));
+        }
+        /* Tallest first so each shelf is filled with images of similar heights, then by name so packing is stable */
+        images.sort(Comparator.comparingInt((Image image) -> -image.pixels.getHeight())
+                .thenComparing(image -> image.file));
+
+        TextureAtlas atlas = new TextureAtlas(pageSize);
+        int page = -1;
+        int x = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+        for (Image image: images) {
+            int width = image.pixels.getWidth() + 2 * PADDING;
+            int height = image.pixels.getHeight() + 2 * PADDING;
+            if (width > pageSize || height > pageSize) {
+                continue; // drawn on its own
+            }
+            if (page >= 0 && x + width > pageSize) { // start a new shelf
+                shelfY += shelfHeight;
+                x = 0;
+                shelfHeight = 0;
+            }
+            if (page < 0 || shelfY + height > pageSize) { // start a new page
+                atlas.addPage();
+                page++;
+                x = 0;
+                shelfY = 0;
+                shelfHeight = 0;
+            }
+            atlas.put(image, page, x + PADDING, shelfY + PADDING);
+            atlas.usedHeights.set(page, Math.max(atlas.usedHeights.get(page), shelfY + height));
+            x += width;
+            shelfHeight = Math.max(shelfHeight, height);
+        }
+        return atlas;
+    }
+
+    /**
+     * Adds an empty page
+     */
+    private void addPage() {
+        pages.add(ByteBuffer.allocateDirect(pageSize * pageSize * BYTES_PER_PIXEL).order(ByteOrder.nativeOrder()));
+        usedHeights.add(0);
+    }
+
+    /**
+     * Copies an image into a page and records its region
+     */
+    private void put(Image image, int page, int x, int y) {
+        int width = image.pixels.getWidth();
+        int height = image.pixels.getHeight();
+        copy(image.pixels.getRGB(0, 0, width, height, null, 0, width), width, height, page, x, y);
+        regions.put(image.file, new Region(page, x, y, width, height, pageSize));
+    }
+
+    /**
+     * Copies ARGB pixels into a page, converting them to RGBA
+     */
+    private void copy(int[] argb, int width, int height, int page, int x, int y) {
+        ByteBuffer pixels = pages.get(page);
+        for (int row = 0; row < height; row++) {
+            int offset = ((y + row) * pageSize + x) * BYTES_PER_PIXEL;
+            for (int column = 0; column < width; column++) {
+                int pixel = argb[row * width + column];
+                pixels.put(offset++, (byte) (pixel >>> 16));
+                pixels.put(offset++, (byte) (pixel >>> 8));
+                pixels.put(offset++, (byte) pixel);
+                pixels.put(offset++, (byte) (pixel >>> 24));
+            }
+        }
+    }
+
+    /**
+     * Finds where an image was packed
+     * @param file The path to the image, as it was given when packing
+     * @return The region of the image, or null if it was not packed
+     */
+    public Region find(String file) {
+        return regions.get(file);
+    }
+
+    /**
+     * Retrieves the number of pages in the atlas
+     * @return The number of pages
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Retrieves the width and height of the pages
+     * @return The size of a page in pixels
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Retrieves the pixels of a page, to upload as a texture
+     * @param page The number of the page
+     * @return The pixels, four bytes per pixel in RGBA order, positioned at the start
+     */
+    public ByteBuffer getPagePixels(int page) {
+        return pages.get(page).duplicate();
+    }
+
+    /**
+     * Retrieves the rows of a page that images are packed into as an image, to save. The rows below are empty
+     * @param page The number of the page
+     * @return The used rows of the page as an ABGR image
+     */
+    public BufferedImage getPageImage(int page) {
+        ByteBuffer pixels = pages.get(page);
+        int height = Math.max(1, usedHeights.get(page));
+        BufferedImage image = new BufferedImage(pageSize, height, BufferedImage.TYPE_4BYTE_ABGR);
+        byte[] abgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < abgr.length; i += BYTES_PER_PIXEL) {
+            abgr[i] = pixels.get(i + 3);
+            abgr[i + 1] = pixels.get(i + 2);
+            abgr[i + 2] = pixels.get(i + 1);
+            abgr[i + 3] = pixels.get(i);
+        }
+        return image;
+    }
+
+    /**
+     * Retrieves the number of images packed into the atlas
+     * @return The number of images
+     */
+    public int getRegionCount() {
+        return regions.size();
+    }
+
+    /**
+     * Retrieves the paths of the images packed into the atlas
+     * @return The paths, as they were given when packing
+     */
+    public List<String> getFiles() {
+        ArrayList<String> files = new ArrayList<>(regions.keySet());
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * An image read for packing
+     */
+    private static final class Image {
+        private final String file;
+        private final BufferedImage pixels;
+
+        private Image(String file, BufferedImage pixels) {
+            this.file = file;
+            this.pixels = pixels;
+        }
+    }
+
+    /**
+     * Where an image is on its page, in pixels and in texture co-ords
+     */
+    public static final class Region {
+        private final int page;
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+        private final float u0;
+        private final float v0;
+        private final float u1;
+        private final float v1;
+
+        private Region(int page, int x, int y, int width, int height, int pageSize) {
+            this.page = page;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            u0 = x / (float) pageSize;
+            v0 = y / (float) pageSize;
+            u1 = (x + width) / (float) pageSize;
+            v1 = (y + height) / (float) pageSize;
+        }
+
+        /**
+         * Retrieves the page the image is on
+         * @return The number of the page
+         */
+        public int getPage() {
+            return page;
+        }
+
+        /**
+         * Retrieves the x co-ord of the left edge of the image on its page
+         * @return The x co-ord in pixels
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * Retrieves the y co-ord of the top edge of the image on its page
+         * @return The y co-ord in pixels
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * Retrieves the width of the image
+         * @return The width in pixels
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Retrieves the height of the image
+         * @return The height in pixels
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Retrieves the texture co-ord of the left edge of the image
+         * @return The left texture co-ord, from 0 to 1
+         */
+        public float getU0() {
+            return u0;
+        }
+
+        /**
+         * Retrieves the texture co-ord of the top edge of the image
+         * @return The top texture co-ord, from 0 to 1
+         */
+        public float getV0() {
+            return v0;
+        }
+
+        /**
+         * Retrieves the texture co-ord of the right edge of the image
+         * @return The right texture co-ord, from 0 to 1
+         */
+        public float getU1() {
+            return u1;
+        }
+
+        /**
+         * Retrieves the texture co-ord of the bottom edge of the image
+         * @return The bottom texture co-ord, from 0 to 1
+         */
+        public float getV1() {
+            return v1;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.HashMap;
+
+/**
+ * Reference counted cache of sprites keyed by image file, so every entity with the same image shares one sprite and
+ * each image file is decoded and uploaded to the GPU only once. Sprites are released when the last entity using them
+ * is discarded with its world
+ * @author Taiyo Siew-Adachi
+ */
+public class TextureCache {
+    private static final HashMap<String, Entry> entries = new HashMap<>();
+    private static long hits = 0;
+    private static long misses = 0;
+
+    /**
+     * Retrieves the shared sprite for an image file, creating it on first use, and adds a reference to it
+     * @param file The path to the image file
+     * @return The sprite for the image file
+     */
+    public static synchronized Sprite acquire(String file) {
+        Entry entry = entries.get(file);
+        if (entry == null) {
+            misses++;
+            entry = new Entry(new Sprite(file));
+            entries.put(file, entry);
+        }
+        else {
+            hits++;
+        }
+        entry.references++;
+        return entry.sprite;
+    }
+
+    /**
+     * Removes a reference to a sprite, unloading its image once nothing references it any more
+     * @param sprite The sprite that is no longer used
+     */
+    public static synchronized void release(Sprite sprite) {
+        Entry entry = entries.get(sprite.getFile());
+        if (entry == null || entry.sprite != sprite) {
+            return;
+        }
+        if (--entry.references <= 0) {
+            entries.remove(sprite.getFile());
+            sprite.unload();
+        }
+    }
+
+    /**
+     * Retrieves the number of times a sprite was found already in the cache
+     * @return The number of cache hits
+     */
+    public static synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of times a sprite had to be created as it was not in the cache
+     * @return The number of cache misses
+     */
+    public static synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Retrieves the number of distinct sprites currently in the cache
+     * @return The number of sprites in the cache
+     */
+    public static synchronized int getSpriteCount() {
+        return entries.size();
+    }
+
+    /**
+     * Retrieves the estimated memory of the loaded images in the cache, four bytes per pixel
+     * @return The number of bytes of image data resident
+     */
+    public static synchronized long getBytesResident() {
+        long bytes = 0;
+        for (Entry entry: entries.values()) {
+            bytes += entry.sprite.getBytesLoaded();
+        }
+        return bytes;
+    }
+
+    /**
+     * A sprite in the cache and the number of references to it
+     */
+    private static final class Entry {
+        private final Sprite sprite;
+        private int references = 0;
+
+        private Entry(Sprite sprite) {
+            this.sprite = sprite;
+        }
+    }
+}
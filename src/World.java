@@ -6,70 +6,600 @@ import java.util.*;
  * @author Taiyo Siew-Adachi
  */
 public abstract class World {
+    private static final double BROADPHASE_CELL_SIZE = 256;
+    private static final double CULLING_BUCKET_SIZE = 512;
+    /* Distance outside the window that entities are still drawn at, so sprites partly on screen are not cut off */
+    private static final double CULLING_MARGIN = 256;
+    /* Distance outside the window that patrolling entities are updated at, beyond which they are left dormant. It
+     * must cover the culling margin, so every entity drawn or in reach of the player has been brought up to date */
+    private static final double ACTIVATION_MARGIN = 512;
+    private static final Comparator<Entity> DRAW_ORDER = Comparator.comparingLong(Entity::getDrawOrder);
+    /* Entities are drawn in the order of their types, then the order they are in the level file */
+    private static final int DRAW_ORDER_TYPE_SHIFT = 32;
+    /* Fireballs are drawn in the layer above every entity type */
+    private static final int PROJECTILE_LAYER = EntityType.values().length;
+    /* Number of entities below which a phase of the update runs on the calling thread rather than being split
+     * across the fork join pool, where the cost of splitting would outweigh the work */
+    private static final int PARALLEL_GRAIN = 1024;
     private final LinkedHashSet<Entity> allEntities = new LinkedHashSet<>();
     private final HashSet<MovesIndependentFromPlayer> movesIndependentFromPlayers = new HashSet<>();
-    private final HashSet<InteractsWithPlayer> interactsWithPlayers = new HashSet<>();
+    /* One set of grids per parallax layer, as entities scrolling at different speeds do not share world space */
+    private final ArrayList<ParallaxLayer> layers = new ArrayList<>();
+    private final ArrayList<InteractsWithPlayer> nearbyInteractions = new ArrayList<>();
+    private final ArrayList<Entity> alwaysDrawn = new ArrayList<>();
+    private final ArrayList<Entity> visibleEntities = new ArrayList<>();
+    private final ArrayList<Entity> nearbyEntities = new ArrayList<>();
+    /* The entities moved in the current update, and which nearby interactions collided with the player */
+    private final ArrayList<MovesIndependentFromPlayer> movers = new ArrayList<>();
+    private final ArrayList<Patroller> awakePatrollers = new ArrayList<>();
+    private boolean[] collided = new boolean[64];
+    private final ParallelLoop.Body moveRange = this::moveRange;
+    private final ParallelLoop.Body detectRange = this::detectRange;
+    private boolean parallelUpdate = true;
+    /* Removals found while iterating, applied together by the sweep at the end of the update */
+    private final ArrayList<Entity> retiring = new ArrayList<>();
+    private final ArrayList<InteractsWithPlayer> spentInteractions = new ArrayList<>();
+    private int sweptEntityCount = 0;
+    /* Number of times the world has been updated, which patrolling entities are positioned by */
+    private long updateCount = 0;
+    private long collisionCheckCount = 0;
+    private int patrollerCount = 0;
+    private final Camera camera = new Camera();
+    private final GameConfig config;
+    private final WorldRandom random;
+    private final Projectiles projectiles;
+    private LevelStreamer streamer;
+    private FrameProfiler profiler = FrameProfiler.disabled();
+    private final double windowWidth;
+    private final double windowHeight;
+    private int nextDrawOrder = 0;
+    private int drawnEntityCount = 0;
+    private int culledEntityCount = 0;
 
     /**
-     * Default constructor for the World class
+     * Constructs an empty world
+     * @param config The configuration of the game
+     * @param seed The seed of the world's randomness, the same seed and inputs always give the same run
      */
-    public World(){
+    public World(GameConfig config, long seed){
+        this.config = config;
+        random = new WorldRandom(seed);
+        projectiles = new Projectiles(camera, config);
+        windowWidth = config.getWindowWidth();
+        windowHeight = config.getWindowHeight();
     }
 
     /**
-     * Uniformly move the entities to the right, against the player's movement
+     * Constructs the world for a level from the level file set in the game configuration
+     * @param level The number of the level, from 1 to 3
+     * @param config The configuration of the game
+     * @param seed The seed of the world's randomness
+     * @return The world for the level
      */
-    public void moveRight() {
-        for (Entity entity: allEntities) {
-            entity.moveRight();
+    public static World newWorld(int level, GameConfig config, long seed) {
+        GameEvents.LevelLoad event = new GameEvents.LevelLoad();
+        event.begin();
+        World world;
+        if (level == 1) {
+            world = new World1(LevelLoader.load(config.getLevelFile(1)), config, seed);
+        }
+        else if (level == 2) {
+            world = new World2(LevelLoader.load(config.getLevelFile(2)), config, seed);
+        }
+        else if (level == 3) {
+            world = new World3(LevelLoader.load(config.getLevelFile(3)), config, seed);
         }
+        else {
+            throw new IllegalArgumentException("No such level: " + level);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.level = level;
+            event.seed = seed;
+            event.entities = world.getEntityCount();
+            event.commit();
+        }
+        return world;
     }
 
     /**
-     * Uniformly move the entities to the left, against the player's movement
+     * Runs one fixed length simulation step of the world while the game is in play: updates the world, then moves
+     * the player according to the keys held or pressed since the last step
+     * @param input The state of the keys for this step
      */
-    public void moveLeft() {
-        for (Entity entity: allEntities) {
-            entity.moveLeft();
+    public void step(InputState input) {
+        camera.beginStep();
+        /* Update world for new step, for things to happen regardless of key inputs */
+        updateWorld();
+        Player player = getPlayer();
+        if (input.isActive(InputState.RIGHT)) {
+            moveRight(); // world moves against player perspective to the left
+        }
+        if (input.isActive(InputState.LEFT)) {
+            moveLeft(); // world moves against player perspective to the right
+        }
+        if (player.getIsJumping()) { // jumping or fell off flying platform
+            player.isMidAir();
+        }
+        else if (input.isActive(InputState.UP)) {
+            player.jump();
         }
+        /* Player shoots fireball if the level allows it */
+        if (input.wasPressed(InputState.SHOOT) && canShootFireballs()) {
+            player.shootFireball(projectiles);
+        }
+        projectiles.endBurst();
     }
 
     /**
-     * Render images of all world entities onto game window
+     * Runs one simulation step of the losing animation, where the player falls off the screen
      */
-    public void drawWorld() {
-        for (Entity entity: allEntities) {
-            entity.draw();
+    public void stepLosingAnimation() {
+        camera.beginStep();
+        getPlayer().noHealth();
+    }
+
+    /**
+     * Checks if the player is allowed to shoot fireballs in this world
+     * @return true if the player can shoot, false otherwise
+     */
+    protected boolean canShootFireballs() {
+        return false;
+    }
+
+    /**
+     * Scroll the camera to the right, so the entities appear to move to the left against the player's movement
+     */
+    public void moveRight() {
+        camera.scrollRight();
+        getPlayer().moveRight();
+    }
+
+    /**
+     * Scroll the camera to the left, so the entities appear to move to the right against the player's movement
+     */
+    public void moveLeft() {
+        camera.scrollLeft();
+        getPlayer().moveLeft();
+    }
+
+    /**
+     * Render images of the world entities that overlap the game window. Entities are looked up from the buckets
+     * covering the window and drawn in the order they were added to the world
+     * @param renderer The renderer to draw with
+     * @param alpha How far the frame is between the previous and latest simulation steps, from 0 up to 1
+     */
+    public void drawWorld(Renderer renderer, double alpha) {
+        GameEvents.WorldDraw event = new GameEvents.WorldDraw();
+        event.begin();
+        camera.setInterpolation(alpha);
+        visibleEntities.clear();
+        visibleEntities.addAll(alwaysDrawn);
+        for (ParallaxLayer layer: layers) {
+            /* Edges of the window in the world space of this layer */
+            double minX = camera.toWorldX(-CULLING_MARGIN, layer.xSpeed);
+            double maxX = camera.toWorldX(windowWidth + CULLING_MARGIN, layer.xSpeed);
+            layer.drawables.query(minX, -CULLING_MARGIN, maxX, windowHeight + CULLING_MARGIN, visibleEntities);
+        }
+        visibleEntities.sort(DRAW_ORDER);
+        for (Entity entity: visibleEntities) {
+            renderer.setLayer((int) (entity.getDrawOrder() >>> DRAW_ORDER_TYPE_SHIFT));
+            entity.draw(renderer);
         }
+        renderer.setLayer(PROJECTILE_LAYER);
+        projectiles.draw(renderer); // fireballs are drawn on top, and disappear once off screen
+        drawnEntityCount = visibleEntities.size() + projectiles.size();
+        culledEntityCount = allEntities.size() - visibleEntities.size();
+        event.end();
+        if (event.shouldCommit()) {
+            event.drawn = drawnEntityCount;
+            event.culled = culledEntityCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Retrieves the number of entities drawn in the last call to drawWorld
+     * @return The number of entities drawn
+     */
+    public int getDrawnEntityCount() {
+        return drawnEntityCount;
     }
 
     /**
-     * Iteratively checks each entity that interacts with the player if they are in range and collides them if so
+     * Retrieves the number of entities skipped in the last call to drawWorld, as they were outside the game window
+     * @return The number of entities culled
+     */
+    public int getCulledEntityCount() {
+        return culledEntityCount;
+    }
+
+    /**
+     * Updates the world in three phases: moves the entities that move on their own, finds which entities in the
+     * cells around the player collide with it, then applies those collisions to the player one at a time in a fixed
+     * order. The first two phases only touch each entity's own state, so on large levels they are split across the
+     * fork join pool, with the same results as running them on one thread
      */
     public void updateWorld() {
+        GameEvents.WorldUpdate event = new GameEvents.WorldUpdate();
+        event.begin();
+        long checksBefore = collisionCheckCount;
+        long time = profiler.start();
+        if (streamer != null) {
+            streamer.update(camera);
+        }
+        time = profiler.record(FrameProfiler.Phase.STREAMING, time);
         updatePositions();
-        for (InteractsWithPlayer interactsWithPlayer: interactsWithPlayers) {
-            if (interactsWithPlayer.checkCollisionWithPlayer(getPlayer())) {
-                interactsWithPlayer.interactWithPlayer(getPlayer());
+        time = profiler.record(FrameProfiler.Phase.POSITIONS, time);
+        Player player = getPlayer();
+        nearbyInteractions.clear();
+        for (ParallaxLayer layer: layers) {
+            /* Position of the player in the world space of this layer */
+            double playerX = camera.toWorldX(player.getScreenX(), layer.xSpeed);
+            double reach = player.getRadius() + layer.maxInteractionReach;
+            layer.interactions.query(playerX - reach, player.getY() - reach,
+                    playerX + reach, player.getY() + reach, nearbyInteractions);
+        }
+        if (collided.length < nearbyInteractions.size()) {
+            collided = new boolean[Math.max(nearbyInteractions.size(), collided.length * 2)];
+        }
+        runPhase(nearbyInteractions.size(), detectRange);
+        collisionCheckCount += nearbyInteractions.size();
+        /* Interactions change the player's score, health and power ups but never its position, so every collision
+         * found before applying any of them is the same as checking and applying them one at a time */
+        for (int i = 0; i < nearbyInteractions.size(); i++) {
+            if (collided[i]) {
+                InteractsWithPlayer interactsWithPlayer = nearbyInteractions.get(i);
+                interactsWithPlayer.interactWithPlayer(player);
+                if (interactsWithPlayer.isInteractionSpent()) {
+                    spentInteractions.add(interactsWithPlayer);
+                }
             }
         }
+        updateProjectiles();
+        time = profiler.record(FrameProfiler.Phase.COLLISIONS, time);
+        sweep();
+        profiler.record(FrameProfiler.Phase.REMOVAL, time);
+        event.end();
+        if (event.shouldCommit()) {
+            event.entities = allEntities.size();
+            event.interactions = getInteractionCount();
+            event.movers = getMoverCount();
+            event.awakePatrollers = awakePatrollers.size();
+            event.collisionChecks = (int) (collisionCheckCount - checksBefore);
+            event.fireballs = projectiles.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Checks the nearby interactions in part of the range for collisions with the player, without changing either
+     */
+    private void detectRange(int from, int to) {
+        Player player = getPlayer();
+        for (int i = from; i < to; i++) {
+            collided[i] = nearbyInteractions.get(i).checkCollisionWithPlayer(player);
+        }
+    }
+
+    /**
+     * Runs one phase of the update over the given number of entities, split across the fork join pool if parallel
+     * updates are on
+     */
+    private void runPhase(int size, ParallelLoop.Body body) {
+        if (parallelUpdate) {
+            ParallelLoop.forRange(size, PARALLEL_GRAIN, body);
+        }
+        else {
+            body.run(0, size);
+        }
     }
 
     /**
-     * Moves all entities that move independent of the player's movement such as random movements
+     * Sets the profiler that times the stages of each update
+     * @param profiler The profiler to record to, or the disabled profiler to not time updates
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Sets whether the phases of the update are split across the fork join pool on large levels. Both ways give the
+     * same results, so this is only for comparing them
+     * @param parallelUpdate true to update in parallel, false to update on the calling thread only
+     */
+    public void setParallelUpdate(boolean parallelUpdate) {
+        this.parallelUpdate = parallelUpdate;
+    }
+
+    /**
+     * Removes the entities that retired during the update from the world, and the entities whose interaction with
+     * the player is spent from the broadphase grid, all at once after iterating has finished. Retired entities keep
+     * their sprites until their owner, the level streamer or the world, releases them
+     */
+    private void sweep() {
+        for (int i = 0; i < spentInteractions.size(); i++) {
+            removeInteractsWithPlayer(spentInteractions.get(i));
+        }
+        spentInteractions.clear();
+        for (int i = 0; i < retiring.size(); i++) {
+            Entity entity = retiring.get(i);
+            removeEntity(entity);
+            if (entity instanceof MovesIndependentFromPlayer) {
+                removeMovesIndependentFromPlayer((MovesIndependentFromPlayer) entity);
+            }
+            if (entity instanceof InteractsWithPlayer) {
+                removeInteractsWithPlayer((InteractsWithPlayer) entity);
+            }
+        }
+        sweptEntityCount += retiring.size();
+        retiring.clear();
+    }
+
+    /**
+     * Retrieves the number of retired entities swept out of the world so far
+     * @return The number of entities swept
+     */
+    public int getSweptEntityCount() {
+        return sweptEntityCount;
+    }
+
+    /**
+     * Moves the fireballs in flight, collides them with the player and enemy boss, then removes the fireballs that
+     * are no longer needed
+     */
+    private void updateProjectiles() {
+        projectiles.updatePositions();
+        Player player = getPlayer();
+        EnemyBoss enemyBoss = getEnemyBoss();
+        collisionCheckCount += (enemyBoss != null ? 2L : 1L) * projectiles.size();
+        for (int i = 0; i < projectiles.size(); i++) {
+            Fireball fireball = projectiles.get(i);
+            if (fireball.checkCollisionWithPlayer(player)) {
+                fireball.interactWithPlayer(player);
+            }
+            if (enemyBoss != null && enemyBoss.collidedWithFireball(fireball)) {
+                enemyBoss.takeDamage(fireball);
+            }
+        }
+        projectiles.sweep();
+    }
+
+    /**
+     * Moves all entities that move independent of the player's movement such as random movements, then keeps the
+     * broadphase and culling grids up to date with their new positions. Patrolling entities are only moved near the
+     * window, those further away are left dormant and are moved straight to where they would have been once they
+     * come near the window again
      */
     private void updatePositions() {
+        updateCount++;
+        movers.clear();
         for (MovesIndependentFromPlayer mover: movesIndependentFromPlayers) {
-            mover.updatePos();
+            movers.add(mover);
+        }
+        findAwakePatrollers();
+        runPhase(movers.size() + awakePatrollers.size(), moveRange);
+        for (int i = 0; i < movers.size(); i++) {
+            MovesIndependentFromPlayer mover = movers.get(i);
+            if (mover instanceof Entity && ((Entity) mover).isRetired()) {
+                retiring.add((Entity) mover);
+            }
+            else {
+                updateGrids(mover);
+            }
+        }
+        for (int i = 0; i < awakePatrollers.size(); i++) {
+            updateGrids(awakePatrollers.get(i));
+        }
+    }
+
+    /**
+     * Moves the entities in part of the range of movers followed by awake patrollers
+     */
+    private void moveRange(int from, int to) {
+        int moverCount = movers.size();
+        for (int i = from; i < to; i++) {
+            if (i < moverCount) {
+                movers.get(i).updatePos();
+            }
+            else {
+                awakePatrollers.get(i - moverCount).patrolTo(updateCount);
+            }
+        }
+    }
+
+    /**
+     * Finds the patrolling entities near the window from the culling grids
+     */
+    private void findAwakePatrollers() {
+        awakePatrollers.clear();
+        if (patrollerCount == 0) {
+            return;
+        }
+        nearbyEntities.clear();
+        for (int i = 0; i < layers.size(); i++) {
+            ParallaxLayer layer = layers.get(i);
+            double minX = camera.toWorldX(-ACTIVATION_MARGIN, layer.xSpeed);
+            double maxX = camera.toWorldX(windowWidth + ACTIVATION_MARGIN, layer.xSpeed);
+            layer.drawables.query(minX, -ACTIVATION_MARGIN, maxX, windowHeight + ACTIVATION_MARGIN, nearbyEntities);
+        }
+        for (int i = 0; i < nearbyEntities.size(); i++) {
+            if (nearbyEntities.get(i) instanceof Patroller) {
+                awakePatrollers.add((Patroller) nearbyEntities.get(i));
+            }
+        }
+        nearbyEntities.clear();
+    }
+
+    /**
+     * Retrieves the number of entities in the world, drawn or not
+     * @return The number of entities
+     */
+    public int getEntityCount() {
+        return allEntities.size();
+    }
+
+    /**
+     * Retrieves the number of entities that can still interact with the player
+     * @return The number of entities in the broadphase grids
+     */
+    public int getInteractionCount() {
+        int count = 0;
+        for (int i = 0; i < layers.size(); i++) {
+            count += layers.get(i).interactions.size();
         }
+        return count;
     }
 
     /**
-     * Introduces new fireball into the world, Can be extended in future to introduce new entities after game commence
-     * by changing parameter to an interface of entities that are added during game is in play
-     * @param fireball The new fireball shot by enemy boss or player
+     * Retrieves the number of entities that move independent of the player, including dormant patrolling entities
+     * @return The number of moving entities
      */
-    public void newFireball(Fireball fireball) {
+    public int getMoverCount() {
+        return movesIndependentFromPlayers.size() + patrollerCount;
+    }
+
+    /**
+     * Retrieves the number of collision checks against the player and enemy boss made so far
+     * @return The number of collision checks
+     */
+    public long getCollisionCheckCount() {
+        return collisionCheckCount;
+    }
+
+    /**
+     * Retrieves the number of patrolling entities in the world
+     * @return The number of patrolling entities
+     */
+    public int getPatrollerCount() {
+        return patrollerCount;
+    }
+
+    /**
+     * Retrieves the number of patrolling entities moved in the last update, the rest were dormant
+     * @return The number of patrolling entities near the window
+     */
+    public int getAwakePatrollerCount() {
+        return awakePatrollers.size();
+    }
+
+    /**
+     * Moves an entity to its new cells in the broadphase and culling grids of its layer
+     * @param moved The object whose position may have changed
+     */
+    private void updateGrids(MovesIndependentFromPlayer moved) {
+        if (moved instanceof Entity) {
+            Entity entity = (Entity) moved;
+            ParallaxLayer layer = findLayer(entity.getXSpeed());
+            if (layer == null) {
+                return;
+            }
+            layer.drawables.update(entity, entity.getX(), entity.getY());
+            if (moved instanceof InteractsWithPlayer) {
+                layer.interactions.update((InteractsWithPlayer) moved, entity.getX(), entity.getY());
+            }
+        }
+    }
+
+    /**
+     * Discards the world, releasing the sprites of all its entities back to the texture cache so images no other
+     * world uses are unloaded
+     */
+    public void dispose() {
+        if (streamer != null) {
+            streamer.dispose();
+        }
+        for (Entity entity: allEntities) {
+            entity.releaseSprites();
+        }
+        projectiles.releaseSprites();
+    }
+
+    /**
+     * Starts streaming the entities of the level that are streamed by scroll position, bringing in the ones around
+     * the window straight away. The rest of the entities are added by the world itself
+     * @param layout The layout of the level
+     */
+    protected void streamLevel(LevelLayout layout) {
+        streamer = new LevelStreamer(this, layout, config);
+        streamer.update(camera);
+    }
+
+    /**
+     * Sets whether chunks of the level coming up ahead of the player are built on a background thread, or on the
+     * simulation thread when they are needed so that runs are repeatable
+     * @param streamInBackground true to build chunks in the background, false otherwise
+     */
+    public void setStreamInBackground(boolean streamInBackground) {
+        if (streamer != null) {
+            streamer.setBuildInBackground(streamInBackground);
+        }
+    }
+
+    /**
+     * Retrieves the streamer of the level's streamed entities
+     * @return The level streamer, or null if the world does not stream its level
+     */
+    public LevelStreamer getStreamer() {
+        return streamer;
+    }
+
+    /**
+     * Constructs a streamed entity of the level. Called by the level streamer, possibly on a background thread, so
+     * it must only construct the entity and not touch the world
+     * @param type The type of the entity
+     * @param x The x co-ord of the entity read from the level file
+     * @param y The y co-ord of the entity read from the level file
+     * @param index The position of the entity in the level file, which its random choices are made from
+     * @return The entity, or null if this level does not have entities of that type
+     */
+    protected Entity createStreamedEntity(EntityType type, double x, double y, int index) {
+        switch (type) {
+            case COIN:
+                return new Coin(x, y, config);
+            case ENEMY:
+                return new Enemy(x, y, random.direction(type, index), config);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Adds an entity streamed in by the level streamer to the world
+     * @param entity The entity to be added
+     * @param type The type of the entity
+     * @param index The position of the entity in the level file
+     */
+    void addStreamedEntity(Entity entity, EntityType type, int index) {
+        addToAllEntities(entity, type, index);
+        if (entity instanceof MovesIndependentFromPlayer) {
+            addToMovesIndependentFromPlayer((MovesIndependentFromPlayer) entity);
+        }
+        if (entity instanceof InteractsWithPlayer && !((InteractsWithPlayer) entity).isInteractionSpent()) {
+            addToInteractsWithPlayer((InteractsWithPlayer) entity);
+        }
+    }
+
+    /**
+     * Removes an entity streamed out by the level streamer from the world
+     * @param entity The entity to be removed
+     */
+    void removeStreamedEntity(Entity entity) {
+        removeEntity(entity);
+        if (entity instanceof MovesIndependentFromPlayer) {
+            removeMovesIndependentFromPlayer((MovesIndependentFromPlayer) entity);
+        }
+        if (entity instanceof InteractsWithPlayer) {
+            removeInteractsWithPlayer((InteractsWithPlayer) entity);
+        }
+    }
+
+    /**
+     * Retrieves the fireballs in flight in this world, which fireballs are shot into
+     * @return The projectiles of this world
+     */
+    public Projectiles getProjectiles() {
+        return projectiles;
     }
 
     /**
@@ -93,53 +623,170 @@ public abstract class World {
     public abstract EndFlag getEndFlag();
 
     /**
-     * Adds an entity to the LinkedHashSet of all entities
+     * Retrieves the configuration of the game this world was built from
+     * @return The game configuration
+     */
+    protected GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Retrieves the source of randomness of this world
+     * @return The world's randomness
+     */
+    protected WorldRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Retrieves the seed the world's randomness was made from, to repeat the run with
+     * @return The seed of the world
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * Retrieves the camera that the world is viewed through
+     * @return The camera of this world
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Adds an entity that is kept for the whole level to the LinkedHashSet of all entities and the culling grid, and
+     * attaches the world's camera to it. Entities of the same type are drawn in the order they are added
      * @param entity The entity to be added
+     * @param type The type of the entity, which decides what it is drawn on top of
      */
-    protected void addToAllEntities(Entity entity) {
-        allEntities.add(entity);
+    protected void addToAllEntities(Entity entity, EntityType type) {
+        addToAllEntities(entity, type, nextDrawOrder++);
     }
 
     /**
-     * Adds a MovesIndependentFromPlayer object to the list of moves independent of the player.
+     * Adds an entity to the LinkedHashSet of all entities and the culling grid, and attaches the world's camera to it
+     * @param entity The entity to be added
+     * @param type The type of the entity, which decides what it is drawn on top of
+     * @param index The position of the entity among those of its type, later entities are drawn on top
+     */
+    private void addToAllEntities(Entity entity, EntityType type, int index) {
+        if (!allEntities.add(entity)) {
+            return;
+        }
+        entity.setCamera(camera);
+        entity.setDrawOrder(((long) type.ordinal() << DRAW_ORDER_TYPE_SHIFT) | index);
+        if (entity.isCullable()) {
+            getLayer(entity.getXSpeed()).drawables.insert(entity, entity.getX(), entity.getY());
+        }
+        else {
+            alwaysDrawn.add(entity);
+        }
+    }
+
+    /**
+     * Adds a MovesIndependentFromPlayer object to the list of moves independent of the player. Patrolling entities
+     * are instead found near the window each update, so they are only counted
      * @param movesIndependentFromPlayer The MovesIndependentFromPlayer object to be added to the set
      */
     protected void addToMovesIndependentFromPlayer(MovesIndependentFromPlayer movesIndependentFromPlayer) {
-        movesIndependentFromPlayers.add(movesIndependentFromPlayer);
+        if (movesIndependentFromPlayer instanceof Patroller) {
+            patrollerCount++;
+        }
+        else {
+            movesIndependentFromPlayers.add(movesIndependentFromPlayer);
+        }
     }
 
     /**
-     * Adds an InteractsWithPlayer object to the list of objects that interact with the player.
-     * @param interactsWithPlayer The InteractsWithPlayer object to be added to the HashSet
+     * Adds an InteractsWithPlayer object to the broadphase grid of objects that interact with the player.
+     * @param interactsWithPlayer The InteractsWithPlayer object to be added to the grid
      */
     protected void addToInteractsWithPlayer(InteractsWithPlayer interactsWithPlayer) {
-        interactsWithPlayers.add(interactsWithPlayer);
+        ParallaxLayer layer = getLayer(interactsWithPlayer.getXSpeed());
+        if (layer.interactions.contains(interactsWithPlayer)) {
+            return;
+        }
+        layer.interactions.insert(interactsWithPlayer, interactsWithPlayer.getX(), interactsWithPlayer.getY());
+        layer.maxInteractionReach = Math.max(layer.maxInteractionReach, interactsWithPlayer.getInteractionReach());
+    }
+
+    /**
+     * Finds the layer of entities scrolling at the given speed
+     * @param xSpeed The horizontal speed of the entities in the layer
+     * @return The layer for that speed, or null if there is none
+     */
+    private ParallaxLayer findLayer(double xSpeed) {
+        for (ParallaxLayer layer: layers) {
+            if (layer.xSpeed == xSpeed) {
+                return layer;
+            }
+        }
+        return null;
     }
 
     /**
-     * Removes an entity from the list of all entities, only used for fireball in this particular implementation
+     * Finds the layer of entities scrolling at the given speed, creating it if it does not exist yet
+     * @param xSpeed The horizontal speed of the entities in the layer
+     * @return The layer for that speed
+     */
+    private ParallaxLayer getLayer(double xSpeed) {
+        ParallaxLayer layer = findLayer(xSpeed);
+        if (layer == null) {
+            layer = new ParallaxLayer(xSpeed);
+            layers.add(layer);
+        }
+        return layer;
+    }
+
+    /**
+     * Removes an entity from the list of all entities and the culling grid
      * @param entity The entity to be removed from the LinkedHashSet,
      */
     protected void removeEntity(Entity entity) {
-        allEntities.remove(entity);
+        if (allEntities.remove(entity)) {
+            alwaysDrawn.remove(entity);
+            for (ParallaxLayer layer: layers) {
+                layer.drawables.remove(entity);
+            }
+        }
     }
 
     /**
-     * Removes a MovesIndependentFromPlayer object from the list of moves independent of the player, only fireball
-     * for this implementation
+     * Removes a MovesIndependentFromPlayer object from the list of moves independent of the player
      * @param movesIndependentFromPlayer The MovesIndependentFromPlayer object to be removed.
      */
     protected void removeMovesIndependentFromPlayer(MovesIndependentFromPlayer movesIndependentFromPlayer) {
-        movesIndependentFromPlayers.remove(movesIndependentFromPlayer);
+        if (movesIndependentFromPlayer instanceof Patroller) {
+            patrollerCount--;
+        }
+        else {
+            movesIndependentFromPlayers.remove(movesIndependentFromPlayer);
+        }
     }
 
     /**
-     * Removes an InteractsWithPlayer object from the list of objects that interact with the player, only fireball
-     * for this implementation
+     * Removes an InteractsWithPlayer object from the grid of objects that interact with the player
      * @param interactsWithPlayer The InteractsWithPlayer object to be removed.
      */
     protected void removeInteractsWithPlayer(InteractsWithPlayer interactsWithPlayer) {
-        interactsWithPlayers.remove(interactsWithPlayer);
+        for (ParallaxLayer layer: layers) {
+            layer.interactions.remove(interactsWithPlayer);
+        }
+    }
+
+    /**
+     * The broadphase and culling grids of the entities that scroll at the same speed, and so share world space
+     */
+    private static final class ParallaxLayer {
+        private final double xSpeed;
+        private final SpatialHash<InteractsWithPlayer> interactions = new SpatialHash<>(BROADPHASE_CELL_SIZE);
+        private final SpatialHash<Entity> drawables = new SpatialHash<>(CULLING_BUCKET_SIZE);
+        private double maxInteractionReach = 0;
+
+        private ParallaxLayer(double xSpeed) {
+            this.xSpeed = xSpeed;
+        }
     }
 }
 
@@ -1,8 +1,3 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.*;
-
 /**
  * Represents the game world for level 1, containing entities such as player, platforms, coins, enemies, and end flag.
  * @author Taiyo Siew-Adachi
@@ -11,62 +6,45 @@ public class World1 extends World {
     private Player player;
     private Platform platform;
     private EndFlag endFlag;
-    private final ArrayList<Enemy> enemies = new ArrayList<>();
-    private final HashSet<Coin> coins = new HashSet<>();
 
     /**
-     * Constructs a new World object for level 1 from CSV file containing the world layout.
-     * @param filename name of csv file to be read in
+     * Constructs a new World object for level 1 from the layout read from its level file.
+     * @param layout The entities in the level, in the order they are written in the level file
+     * @param config The configuration of the game
+     * @param seed The seed of the world's randomness
      */
-    public World1(String filename) {
-        /* Read csv file */
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))){
-
-            String nextLine;
-            while ((nextLine = br.readLine()) != null) {
-                String[] elements = nextLine.split(",");
-                if (elements[0].equals("PLATFORM")) {
-                    platform = new Platform(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                }
-                else if (elements[0].equals("PLAYER")) {
-                    player = new Player(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                }
-                else if (elements[0].equals("END_FLAG")) {
-                    endFlag = new EndFlag(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                }
-                else if (elements[0].equals("COIN")) {
-                    coins.add(new Coin(Double.parseDouble(elements[1]), Double.parseDouble(elements[2])));
-                }
-                else if (elements[0].equals("ENEMY")) {
-                    enemies.add(new Enemy(Double.parseDouble(elements[1]), Double.parseDouble(elements[2])));
-                }
+    public World1(LevelLayout layout, GameConfig config, long seed) {
+        super(config, seed);
+        for (int i = 0; i < layout.size(); i++) {
+            double x = layout.getX(i);
+            double y = layout.getY(i);
+            switch (layout.getType(i)) {
+                case PLATFORM:
+                    platform = new Platform(x, y, config);
+                    break;
+                case PLAYER:
+                    player = new Player(x, y, config);
+                    break;
+                case END_FLAG:
+                    endFlag = new EndFlag(x, y, config);
+                    break;
+                default:
+                    break; // streamed in by scroll position
             }
-            make_collections(); // Order in desired order instead of order of reading from csv
-        }
-        catch (IOException ignored) {
         }
+        make_collections();
+        streamLevel(layout);
     }
 
     /**
-     * Builds collections, HashSet and LinkedHashSet. LinkedHashSet constructed after finish reading csv in order to
-     * control order of LinkedHashSet to allow player and other important entities to be brought to the front in the
-     * game window
+     * Adds the entities kept for the whole level to the world's collections, in the order they are drawn. The
+     * other entities are streamed in and out by the level streamer
      */
     private void make_collections() {
-        addToAllEntities(platform);
-        addToAllEntities(endFlag);
+        addToAllEntities(platform, EntityType.PLATFORM);
+        addToAllEntities(endFlag, EntityType.END_FLAG);
         addToInteractsWithPlayer(endFlag);
-        for (Enemy enemy: enemies) {
-            addToAllEntities(enemy);
-            addToMovesIndependentFromPlayer(enemy);
-            addToInteractsWithPlayer(enemy);
-        }
-        for (Coin coin: coins) {
-            addToAllEntities(coin);
-            addToMovesIndependentFromPlayer(coin);
-            addToInteractsWithPlayer(coin);
-        }
-        addToAllEntities(player);
+        addToAllEntities(player, EntityType.PLAYER);
     }
 
     /**
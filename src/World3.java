@@ -1,7 +1,3 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.*;
 import static java.lang.Math.abs;
 
 
@@ -14,68 +10,44 @@ public class World3 extends World {
     private EnemyBoss enemyBoss = null;
     private Platform platform;
     private EndFlag endFlag;
-    private final ArrayList<FlyingPlatform> flyingPlatforms = new ArrayList<>();
-    private final ArrayList<Enemy> enemies = new ArrayList<>();
-    private final HashSet<Coin> coins = new HashSet<>();
-    private final HashSet<DoubleScore> doubleScores = new HashSet<>();;
-    private final HashSet<InvinciblePower> invinciblePowers = new HashSet<>();;
-    private final HashSet<Fireball> fireballs = new HashSet<>();
 
     /**
-     * Constructs a new World object for level 3 from CSV file containing the world layout.
-     * @param filename name of csv file to be read in
+     * Constructs a new World object for level 3 from the layout read from its level file.
+     * @param layout The entities in the level, in the order they are written in the level file
+     * @param config The configuration of the game
+     * @param seed The seed of the world's randomness
      */
-    public World3(String filename) {
-        /* Read csv file */
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))){
-
-            String nextLine;
-            while ((nextLine = br.readLine()) != null) {
-                String[] elements = nextLine.split(",");
-                if (elements[0].equals("PLATFORM")) {
-                    platform = new Platform(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                }
-                else if (elements[0].equals("PLAYER")) {
-                    player = new Player(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                }
-                else if (elements[0].equals("ENEMY_BOSS")) {
-                    enemyBoss = new EnemyBoss(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                }
-                else if (elements[0].equals("END_FLAG")) {
-                    endFlag = new EndFlag(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                }
-                else if (elements[0].equals("FLYING_PLATFORM")) {
-                    FlyingPlatform flyingPlatform = new FlyingPlatform(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                    flyingPlatforms.add(flyingPlatform);
-                }
-                else if (elements[0].equals("COIN")) {
-                    Coin coin = new Coin(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                    coins.add(coin);
-                }
-                else if (elements[0].equals("DOUBLE_SCORE")) {
-                    DoubleScore doubleScore = new DoubleScore(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                    doubleScores.add(doubleScore);
-                }
-                else if (elements[0].equals("INVINCIBLE_POWER")) {
-                    InvinciblePower invinciblePower = new InvinciblePower(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                    invinciblePowers.add(invinciblePower);
-                }
-                else if (elements[0].equals("ENEMY")) {
-                    Enemy enemy = new Enemy(Double.parseDouble(elements[1]), Double.parseDouble(elements[2]));
-                    enemies.add(enemy);
-                }
+    public World3(LevelLayout layout, GameConfig config, long seed) {
+        super(config, seed);
+        for (int i = 0; i < layout.size(); i++) {
+            double x = layout.getX(i);
+            double y = layout.getY(i);
+            switch (layout.getType(i)) {
+                case PLATFORM:
+                    platform = new Platform(x, y, config);
+                    break;
+                case PLAYER:
+                    player = new Player(x, y, config);
+                    break;
+                case ENEMY_BOSS:
+                    enemyBoss = new EnemyBoss(x, y, getRandom().stream(EntityType.ENEMY_BOSS), config);
+                    break;
+                case END_FLAG:
+                    endFlag = new EndFlag(x, y, config);
+                    break;
+                default:
+                    break; // streamed in by scroll position
             }
-            make_collections(); // Order in desired order instead of order of reading from csv
-        }
-        catch (IOException ignored) {
         }
+        make_collections();
+        streamLevel(layout);
     }
 
 
     /**
-     * Updates the world by updating positions and checking collisions from superclass, excluding end flag as
-     * in level 3, enemy boss should be defeated before winning. Also, responsible for checking fireball enemy boss
-     * collision, fireball disappear condition, player falling off flying platform, ticking down the player's power ups,
+     * Updates the world by updating positions and checking collisions, including fireballs, from superclass,
+     * excluding end flag as in level 3, enemy boss should be defeated before winning. Also, responsible for the
+     * enemy boss falling once defeated, player falling off flying platform, ticking down the player's power ups,
      * and enemy boss random fireball shots.
      */
     public void updateWorld() {
@@ -86,30 +58,14 @@ public class World3 extends World {
                 endFlag.interactWithPlayer(player);
             }
         }
-        /* Boss and fireball collisions and interactions */
-        for (Fireball fireball: fireballs) {
-            if (enemyBoss.collidedWithFireball(fireball)) {
-                enemyBoss.takeDamage(fireball);
-                if (!enemyBoss.isAlive()) {
-                    addToMovesIndependentFromPlayer(enemyBoss);
-                }
-            }
-        }
-        /* Remove the fireballs that are no longer needed */
-        Iterator<Fireball> iterator = fireballs.iterator();
-        while (iterator.hasNext()) {
-            Fireball fireball = iterator.next();
-            if (fireball.canDisappear()) {
-                iterator.remove(); // Remove the current fireball using iterator
-                removeEntity(fireball);
-                removeMovesIndependentFromPlayer(fireball);
-                removeInteractsWithPlayer(fireball);
-            }
+        /* Boss defeated by fireballs falls to its death */
+        if (!enemyBoss.isAlive()) {
+            addToMovesIndependentFromPlayer(enemyBoss);
         }
         /* Check if player falls off the current platform */
         if (player.getIsOnFlyingPlatform()) {
             FlyingPlatform currentPlatform = player.getPlatformStandingOn();
-            if (abs(player.getX() - currentPlatform.getX()) >= currentPlatform.getHalfLength()) { // fall off platform
+            if (abs(player.getScreenX() - currentPlatform.getScreenX()) >= currentPlatform.getHalfLength()) { // fall off platform
                 player.getOffFlyingPlatform();
             }
         }
@@ -118,57 +74,51 @@ public class World3 extends World {
         /* Boss random fireball shooting */
         if (enemyBoss.inFireballRange(player)) {
             if (enemyBoss.tryShootFireball()) {
-                newFireball(enemyBoss.shootFireball());
+                enemyBoss.shootFireball(getProjectiles());
             }
         }
     }
 
     /**
-     * Introduces new fireball into the world by adding it to collections in this class and the superclass
-     * @param fireball The new fireball shot by enemy boss or player
+     * The player can shoot fireballs at the enemy boss in level 3
+     * @return true
      */
-    public void newFireball(Fireball fireball) {
-        fireballs.add(fireball);
-        addToAllEntities(fireball);
-        addToMovesIndependentFromPlayer(fireball);
-        addToInteractsWithPlayer(fireball);
+    @Override
+    protected boolean canShootFireballs() {
+        return true;
     }
 
     /**
-     * Builds collections, HashSet and LinkedHashSet. LinkedHashSet constructed after finish reading csv to
-     * control order of LinkedHashSet to allow player and other important entities to be brought to the front of the
-     * game window when drawing. End flag not added to InteractsWithPlayer, as collisions dealt with in this class
+     * Constructs a streamed entity of level 3, which also has flying platforms and power ups
+     * @param type The type of the entity
+     * @param x The x co-ord of the entity read from the level file
+     * @param y The y co-ord of the entity read from the level file
+     * @param index The position of the entity in the level file, which its random choices are made from
+     * @return The entity, or null if this level does not have entities of that type
      */
-    private void make_collections() {
-        addToAllEntities(platform);
-        addToAllEntities(endFlag);
-        for (FlyingPlatform flyingPlatform: flyingPlatforms) {
-            addToAllEntities(flyingPlatform);
-            addToMovesIndependentFromPlayer(flyingPlatform);
-            addToInteractsWithPlayer(flyingPlatform);
-        }
-        for (Enemy enemy: enemies) {
-            addToAllEntities(enemy);
-            addToMovesIndependentFromPlayer(enemy);
-            addToInteractsWithPlayer(enemy);
-        }
-        for (Coin coin: coins) {
-            addToAllEntities(coin);
-            addToMovesIndependentFromPlayer(coin);
-            addToInteractsWithPlayer(coin);
+    @Override
+    protected Entity createStreamedEntity(EntityType type, double x, double y, int index) {
+        switch (type) {
+            case FLYING_PLATFORM:
+                return new FlyingPlatform(x, y, getRandom().direction(type, index), getConfig());
+            case DOUBLE_SCORE:
+                return new DoubleScore(x, y, getConfig());
+            case INVINCIBLE_POWER:
+                return new InvinciblePower(x, y, getConfig());
+            default:
+                return super.createStreamedEntity(type, x, y, index);
         }
-        for (DoubleScore doubleScore: doubleScores) {
-            addToAllEntities(doubleScore);
-            addToMovesIndependentFromPlayer(doubleScore);
-            addToInteractsWithPlayer(doubleScore);
-        }
-        for (InvinciblePower invinciblePower: invinciblePowers) {
-            addToAllEntities(invinciblePower);
-            addToMovesIndependentFromPlayer(invinciblePower);
-            addToInteractsWithPlayer(invinciblePower);
-        }
-        addToAllEntities(enemyBoss);
-        addToAllEntities(player);
+    }
+
+    /**
+     * Adds the entities kept for the whole level to the world's collections, in the order they are drawn. The
+     * other entities are streamed in and out by the level streamer, and the end flag is not added to InteractsWithPlayer, as collisions dealt with in this class
+     */
+    private void make_collections() {
+        addToAllEntities(platform, EntityType.PLATFORM);
+        addToAllEntities(endFlag, EntityType.END_FLAG);
+        addToAllEntities(enemyBoss, EntityType.ENEMY_BOSS);
+        addToAllEntities(player, EntityType.PLAYER);
     }
 
     /**
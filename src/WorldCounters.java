@@ -0,0 +1,65 @@
+/**
+ * The counts of a world shown by the performance overlay, copied from the world by the simulation stage at the end of
+ * each frame and handed over with the frame's draw list, so the Bagel thread never reads the world while the
+ * simulation thread is changing it. Each draw list keeps its own counters, so copying them allocates nothing
+ * @author Taiyo Siew-Adachi
+ */
+public class WorldCounters {
+    private int entityCount = 0;
+    private int interactionCount = 0;
+    private int moverCount = 0;
+    private int projectileCount = 0;
+    private long collisionCheckCount = 0;
+
+    /**
+     * Copies the counts of a world. Called on the thread running the world
+     * @param world The world to copy the counts of
+     */
+    public void capture(World world) {
+        entityCount = world.getEntityCount();
+        interactionCount = world.getInteractionCount();
+        moverCount = world.getMoverCount();
+        projectileCount = world.getProjectiles().size();
+        collisionCheckCount = world.getCollisionCheckCount();
+    }
+
+    /**
+     * Retrieves the number of entities in the world, drawn or not
+     * @return The number of entities
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    /**
+     * Retrieves the number of entities that could still interact with the player
+     * @return The number of entities in the broadphase grids
+     */
+    public int getInteractionCount() {
+        return interactionCount;
+    }
+
+    /**
+     * Retrieves the number of entities that move independent of the player
+     * @return The number of moving entities
+     */
+    public int getMoverCount() {
+        return moverCount;
+    }
+
+    /**
+     * Retrieves the number of fireballs in flight
+     * @return The number of fireballs
+     */
+    public int getProjectileCount() {
+        return projectileCount;
+    }
+
+    /**
+     * Retrieves the number of collision checks made by the world so far
+     * @return The number of collision checks
+     */
+    public long getCollisionCheckCount() {
+        return collisionCheckCount;
+    }
+}
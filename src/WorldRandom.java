@@ -0,0 +1,73 @@
+import java.util.SplittableRandom;
+
+/**
+ * The source of randomness of a world, seeded when the level starts so a run can be repeated exactly. Each type of
+ * entity draws from its own stream split off the seed, so adding randomness to one type does not change the others.
+ * Choices made when an entity is built, such as which way it starts patrolling, are derived from the entity's
+ * position in the level file rather than drawn in turn, so they do not depend on the order entities are streamed
+ * in, and can be made on the streaming thread without allocating or locking
+ * @author Taiyo Siew-Adachi
+ */
+public class WorldRandom {
+    /* The increment between the inputs of consecutive entities, the golden ratio gamma of SplittableRandom */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private final long seed;
+    private final long[] typeSeeds = new long[EntityType.values().length];
+
+    /**
+     * Constructs the randomness of a world from its seed
+     * @param seed The seed of the world
+     */
+    public WorldRandom(long seed) {
+        this.seed = seed;
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int i = 0; i < typeSeeds.length; i++) {
+            typeSeeds[i] = root.nextLong();
+        }
+    }
+
+    /**
+     * Chooses a seed for a new level, different every time
+     * @return A new seed
+     */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * Retrieves the seed of the world, to repeat the run with
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Chooses the direction an entity starts moving in, the same every time for the same seed and entity
+     * @param type The type of the entity
+     * @param index The position of the entity in the level file
+     * @return 1 for positive direction, -1 for opposite direction
+     */
+    public int direction(EntityType type, int index) {
+        return mix(typeSeeds[type.ordinal()] + index * GOLDEN_GAMMA) < 0 ? -1 : 1;
+    }
+
+    /**
+     * Creates the stream of random numbers for a type of entity that draws them in turn as the game runs, such as
+     * the enemy boss deciding when to shoot. It must only be used on the simulation thread
+     * @param type The type of the entity
+     * @return The random number stream of that type
+     */
+    public SplittableRandom stream(EntityType type) {
+        return new SplittableRandom(typeSeeds[type.ordinal()]);
+    }
+
+    /**
+     * Scrambles the bits of a value, the finalizer of SplitMix64, so nearby inputs give unrelated outputs
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}